@@ -1,16 +1,13 @@
 package com.catalogomultimedia.bean;
 
-import com.catalogomultimedia.service.DashboardService;
 import com.catalogomultimedia.service.DashboardService.DashboardStatistics;
-import com.catalogomultimedia.service.MediaTitleService;
-import com.catalogomultimedia.service.MovieGenreService;
+import com.catalogomultimedia.service.DashboardStatisticsCache;
 import jakarta.annotation.PostConstruct;
 import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 
 import java.io.Serializable;
-import java.util.HashMap;
 import java.util.Map;
 
 @Named
@@ -20,65 +17,38 @@ public class DashboardBean implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Inject
-    private MediaTitleService mediaTitleService;
+    private DashboardStatisticsCache statisticsCache;
 
-    @Inject
-    private MovieGenreService movieGenreService;
-
-    private Long totalTitles;
-    private Long totalMovies;
-    private Long totalSeries;
-    private Long totalGenres;
-    private Long titlesWithPoster;
-    private Long titlesLastMonth;
-    private Long totalFiles;
-    private Double totalStorageMB;
-    private Map<String, Long> filesByType;
-    private Map<String, Long> topGenres;
+    private DashboardStatistics estadisticas;
 
     @PostConstruct
     public void Init(){
         cargarEstadisticas();
-        refresh();
     }
 
     public void refresh(){
-        totalTitles = mediaTitleService.countTotalTitles();
-        totalMovies = mediaTitleService.countMovies();
-        totalMovies = mediaTitleService.countSeries();
-        totalGenres = movieGenreService.countTotalGenres();
-
-        titlesWithPoster = mediaTitleService.countTitlesWithPoster();
-        titlesLastMonth = mediaTitleService.countTitlesFromLastMonth();
-
-        totalFiles = mediaTitleService.countTotalTitles();
+        estadisticas = statisticsCache.refresh();
     }
-    public Long getTotalTitles() { return totalTitles; }
-    public Long getTotalMovies() { return totalMovies; }
-    public Long getTotalSeries() { return totalSeries; }
-    public Long getTotalGenres() { return totalGenres; }
-    public Long getTitlesWithPoster() { return titlesWithPoster; }
-    public Long getTitlesLastMonth() { return titlesLastMonth; }
-    public Long getTotalFiles() { return totalFiles; }
-    public Double getTotalStorageMB() { return totalStorageMB; }
-    public Map<String, Long> getFilesByType() { return filesByType; }
-    public Map<String, Long> getTopGenres() { return topGenres; }
-
-    @Inject
-    private DashboardService dashboardService;
-
-    private DashboardStatistics estadisticas;
-
 
-
-    // 📊 Cargar estadísticas del dashboard
+    public Long getTotalTitles() { return estadisticas.getTotalTitles(); }
+    public Long getTotalMovies() { return estadisticas.getTotalMovies(); }
+    public Long getTotalSeries() { return estadisticas.getTotalSeries(); }
+    public Long getTotalGenres() { return estadisticas.getTotalGenres(); }
+    public Long getTitlesWithPoster() { return estadisticas.getTitlesWithPoster(); }
+    public Long getTitlesLastMonth() { return estadisticas.getTitlesLastMonth(); }
+    public Long getTotalFiles() { return estadisticas.getTotalFiles(); }
+    public Double getTotalStorageMB() { return estadisticas.getTotalStorageMB(); }
+    public Map<String, Long> getFilesByType() { return estadisticas.getFilesByType(); }
+    public Map<String, Long> getTopGenres() { return estadisticas.getTopGenres(); }
+
+    // 📊 Cargar estadísticas del dashboard (desde la caché)
     public void cargarEstadisticas() {
-        estadisticas = dashboardService.getDashboardStatistics();
+        estadisticas = statisticsCache.get();
     }
 
     // 🔄 Refrescar estadísticas
     public void refrescar() {
-        cargarEstadisticas();
+        refresh();
     }
 
     // 🧭 Getters y Setters
@@ -89,4 +59,4 @@ public class DashboardBean implements Serializable {
     public void setEstadisticas(DashboardStatistics estadisticas) {
         this.estadisticas = estadisticas;
     }
-}
\ No newline at end of file
+}
@@ -1,27 +1,40 @@
 package com.catalogomultimedia.bean;
 
 import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.dtos.MediaTitleSearchCriteria;
+import com.catalogomultimedia.dtos.TitleSuggestionDTO;
+import com.catalogomultimedia.enums.FetchPlan;
 import com.catalogomultimedia.enums.FileType;
 import com.catalogomultimedia.enums.TitleType;
 import com.catalogomultimedia.entity.MovieGenre;
-import com.catalogomultimedia.service.AzureBlobStorageService;
+import com.catalogomultimedia.service.BlobUploadService;
+import com.catalogomultimedia.service.ContentHashService;
+import com.catalogomultimedia.service.SignedUrlService;
+import com.catalogomultimedia.service.UploadJob;
 import jakarta.annotation.PostConstruct;
 import jakarta.faces.application.FacesMessage;
+import jakarta.faces.component.UIComponent;
 import jakarta.faces.context.FacesContext;
+import jakarta.faces.push.Push;
+import jakarta.faces.push.PushContext;
 import jakarta.faces.view.ViewScoped;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.primefaces.PrimeFaces;
+import org.primefaces.component.datatable.DataTable;
 import org.primefaces.event.FileUploadEvent;
 import org.primefaces.model.file.UploadedFile;
 
 import java.io.InputStream;
 import java.io.Serializable;
-import java.time.Duration;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 
@@ -31,6 +44,8 @@ import com.catalogomultimedia.entity.MediaTitle;
 import com.catalogomultimedia.service.MediaFileService;
 import com.catalogomultimedia.service.MediaTitleService;
 import com.catalogomultimedia.service.MovieGenreService;
+import com.catalogomultimedia.service.PosterThumbnailService;
+import com.catalogomultimedia.service.TitleSuggestionIndex;
 
 
 
@@ -48,13 +63,26 @@ public class MediaTitleBean implements Serializable {
     @Inject
     private MediaFileService mediaFileService;
     @Inject
-    private AzureBlobStorageService azureBlobStorageService;
+    private BlobUploadService blobUploadService;
+    @Inject
+    private SignedUrlService signedUrlService;
+    @Inject
+    private PosterThumbnailService posterThumbnailService;
+    @Inject
+    private TitleSuggestionIndex titleSuggestionIndex;
+    @Inject
+    @Push(channel = "uploadProgress")
+    private PushContext uploadProgress;
 
     private MediaTitle selectedMediaTitle;
     private MediaFile selectedMediaFile;
 
     private FileType uploadingFileType = FileType.POSTER;
 
+    // Usuario del canal websocket: identifica esta vista
+    private final String uploadChannelUser = UUID.randomUUID().toString();
+    private final Set<String> pendingUploads = new HashSet<>();
+
 
 
 
@@ -78,9 +106,27 @@ public class MediaTitleBean implements Serializable {
     /*--Actions--*/
     public void openNew(){selectedMediaTitle = new MediaTitle();}
 
+    // Diálogo de edición: solo necesita los géneros
+    public void prepareEdit(MediaTitle title){
+        selectedMediaTitle = mediaTitleService.buscarPorId(title.getMediaTitleId(), FetchPlan.EDIT);
+    }
+
+    // Diálogos de archivos: géneros y archivos del título
+    public void setSelectedTitle(MediaTitle title){
+        selectedMediaTitle = title == null || title.getMediaTitleId() == null
+                ? title
+                : mediaTitleService.buscarPorId(title.getMediaTitleId(), FetchPlan.DETAIL);
+    }
+
+    public MediaTitle getSelectedTitle(){
+        return selectedMediaTitle;
+    }
+
     public void save(){
         boolean isNew = selectedMediaTitle.getMediaTitleId()==null;
         mediaTitleService.save(selectedMediaTitle);
+        posterThumbnailService.enqueuePending(selectedMediaTitle);
+        lazyTitles.invalidate();
 
         FacesMessage msg = new FacesMessage(isNew ?
                 "Registro agregado con éxito!" : "Registro actualizado con éxito!");
@@ -93,12 +139,27 @@ public class MediaTitleBean implements Serializable {
 
     public void delete() {
         mediaTitleService.delete(selectedMediaTitle);
+        lazyTitles.invalidate();
         FacesContext.getCurrentInstance().addMessage(null, new FacesMessage("Registro eliminado con éxito!"));
         PrimeFaces.current().ajax().update("form-media-title-dialogs:messages-media-titles",
                 "form-media-title-dialogs:dt-media-titles");
     }
 
     /*-- FileUpload / delete --*/
+    public void handlePosterUpload(FileUploadEvent event) {
+        uploadingFileType = FileType.POSTER;
+        handleFileUpload(event);
+    }
+
+    public void handleTechnicalSheetUpload(FileUploadEvent event) {
+        uploadingFileType = FileType.TECHNICAL_SHEET;
+        handleFileUpload(event);
+    }
+
+    /**
+     * Copia el archivo a un temporal y encola la subida; el progreso llega por el canal
+     * "uploadProgress" y al terminar la página invoca completeUpload
+     */
     public void handleFileUpload(FileUploadEvent event){
 
         UploadedFile uf = event.getFile();
@@ -125,48 +186,100 @@ public class MediaTitleBean implements Serializable {
             return;
         }
 
-
+        Path tempFile;
+        String sha256;
         try (InputStream in = uf.getInputStream()) {
-            MediaFileDTO dto = azureBlobStorageService.uploadCatalogFile(
-                    uploadingFileType,
-                    selectedMediaTitle.getTitleName(),
-                    uf.getFileName(),
-                    uf.getContentType(),
-                    uf.getInputStream(),
-                    uf.getSize(),
-                    "ui",
-                    Duration.ofMinutes(30),
-                    true
-            );
+            tempFile = Files.createTempFile("upload-", ".tmp");
+            sha256 = ContentHashService.copyAndHash(in, tempFile);
+        } catch (Exception ex) {
+            FacesContext.getCurrentInstance().addMessage(null,
+                    new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error al subir archivo", ex.getMessage()));
+            return;
+        }
+
+        // El listener corre en otro hilo: solo captura el canal y el usuario, no el bean
+        PushContext push = uploadProgress;
+        String channelUser = uploadChannelUser;
+        UploadJob job = blobUploadService.submit(
+                selectedMediaTitle.getMediaTitleId(),
+                uploadingFileType,
+                selectedMediaTitle.getTitleName(),
+                uf.getFileName(),
+                ct,
+                tempFile,
+                size,
+                "ui",
+                sha256,
+                j -> push.send(j.toMessage(), channelUser)
+        );
+        pendingUploads.add(job.getJobId());
+
+        FacesContext.getCurrentInstance().addMessage(null,
+                new FacesMessage("Subiendo archivo: " + uf.getFileName()));
+    }
+
+    /**
+     * Llamado desde la página (remoteCommand) cuando el canal avisa de que la subida terminó
+     */
+    public void completeUpload() {
+        String jobId = FacesContext.getCurrentInstance().getExternalContext()
+                .getRequestParameterMap().get("jobId");
+        if (jobId == null || !pendingUploads.remove(jobId)) return;
+
+        UploadJob job = blobUploadService.take(jobId);
+        if (job == null) return;
+
+        if (job.getStatus() == UploadJob.Status.FAILED) {
+            FacesContext.getCurrentInstance().addMessage(null,
+                    new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error al subir archivo", job.getError()));
+        } else {
+            MediaFileDTO dto = job.getResult();
 
             MediaFile mf = new MediaFile();
-            mf.setMediaTitle(selectedMediaTitle);
             mf.setFileType(
                     com.catalogomultimedia.entity.MediaFile.FileType.valueOf(dto.getFileType().name())
             );
-            mf.setBlobUrl(dto.getSignedUrl());
+            mf.setBlobUrl(dto.getBlobUrl());
             mf.setEtag(dto.getEtag());
             mf.setContentType(dto.getContentType());
             mf.setSizeBytes(dto.getSizeBytes());
             mf.setUploadedBy(dto.getUploadedBy());
-            selectedMediaTitle.getMediaFiles().add(mf);
+            mf.setContentSha256(dto.getContentSha256());
             if (dto.getUploadedAt() != null) {
                 mf.setUploadedAt(dto.getUploadedAt().toLocalDateTime());
             } else {
                 mf.setUploadedAt(java.time.LocalDateTime.now());
             }
 
-            selectedMediaTitle.getMediaFiles().add(mf);
+            boolean forSelected = selectedMediaTitle != null
+                    && Objects.equals(selectedMediaTitle.getMediaTitleId(), job.getMediaTitleId());
 
-            FacesContext.getCurrentInstance().addMessage(null,
-                    new FacesMessage("Archivo cargado: " + uf.getFileName()));
-        } catch (Exception ex) {
-            FacesContext.getCurrentInstance().addMessage(null,
-                    new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error al subir archivo", ex.getMessage()));
+            if (job.getMediaTitleId() == null) {
+                // Título aún sin guardar: el archivo se persiste en cascada al guardar el título
+                if (selectedMediaTitle != null) {
+                    selectedMediaTitle.addMediaFile(mf);
+                }
+            } else {
+                mf.setMediaTitle(forSelected
+                        ? selectedMediaTitle
+                        : mediaTitleService.buscarPorId(job.getMediaTitleId()));
+                mediaFileService.save(mf);
+                if (mf.isPoster()) {
+                    posterThumbnailService.enqueue(mf.getMediaFileId());
+                }
+                if (forSelected) {
+                    selectedMediaTitle.getMediaFiles().add(mf);
+                    selectedMediaTitle.setPosterFlag(null);
+                }
+                lazyTitles.invalidate();
+            }
+
+            FacesContext.getCurrentInstance().addMessage(null, new FacesMessage(job.isDeduplicated()
+                    ? "Archivo ya existente, se reutiliza: " + job.getFileName()
+                    : "Archivo cargado: " + job.getFileName()));
         }
 
-        PrimeFaces.current().ajax().update("form-media-title-dialogs:media-files-table",
-                "form-media-title-dialogs:msgsMediaTitles");
+        PrimeFaces.current().ajax().update("catalogoForm:catalogoTable", "catalogoForm:messages");
     }
 
     public void deleteMediaFile() {
@@ -175,6 +288,7 @@ public class MediaTitleBean implements Serializable {
         if (selectedMediaFile.getMediaFileId() != null) {
             mediaFileService.delete(selectedMediaFile);
         }
+        signedUrlService.evict(selectedMediaFile.getBlobUrl());
 
         // Actualizar la lista en el título seleccionado
         List<MediaFile> files = mediaFileService.findAll(); // Si quieres refrescar desde BD
@@ -188,6 +302,30 @@ public class MediaTitleBean implements Serializable {
     }
 
     /* --------- Helpers --------- */
+    // URLs firmadas de corta duración, emitidas al renderizar
+    // Los archivos guardados se sirven por MediaDeliveryServlet (ETag, rangos y caché en disco)
+    public String fileUrl(MediaFile mf) {
+        if (mf == null) return null;
+        if (mf.getMediaFileId() == null) return signedUrlService.inlineUrl(mf.getBlobUrl());
+        return deliveryUrl(mf);
+    }
+
+    // Miniatura del póster para la tabla del catálogo (null si aún no se ha generado)
+    public String posterThumbnailUrl(MediaTitle mt) {
+        return mt == null ? null : signedUrlService.inlineUrl(mt.getPosterThumbnailUrl());
+    }
+
+    public String fileDownloadUrl(MediaFile mf) {
+        if (mf == null) return null;
+        if (mf.getMediaFileId() == null) return signedUrlService.downloadUrl(mf.getBlobUrl());
+        return deliveryUrl(mf) + "?download=1";
+    }
+
+    private static String deliveryUrl(MediaFile mf) {
+        return FacesContext.getCurrentInstance().getExternalContext().getRequestContextPath()
+                + "/media/files/" + mf.getMediaFileId();
+    }
+
     public String joinGenres(MediaTitle mt) {
         if (mt == null || mt.getGenres() == null || mt.getGenres().isEmpty()) return "";
         return mt.getGenres().stream()
@@ -239,29 +377,26 @@ public class MediaTitleBean implements Serializable {
     private TitleType searchType;
     private Integer searchYear;
     private Long searchGenreId;
+    private boolean searchFullText;
 
     private List<MovieGenre> availableGenres;
-    private List<MediaTitle> filteredTitles;
+    private MediaTitleLazyDataModel lazyTitles;
 
     // ======= Métodos de búsqueda =======
     @PostConstruct
     public void init() {
         selectedMediaTitle = new MediaTitle();
         availableGenres = movieGenresService.findAll();
+        lazyTitles = new MediaTitleLazyDataModel(mediaTitleService);
     }
 
     // Acción del botón "Buscar"
     public void searchTitles() {
-        List<MediaTitle> all = mediaTitleService.findAll();
-
-        filteredTitles = all.stream()
-                .filter(t -> (searchTitleName == null || t.getTitleName().toLowerCase().contains(searchTitleName.toLowerCase())))
-                .filter(t -> (searchType == null || t.getTitleType() == searchType))
-                .filter(t -> (searchYear == null || (t.getReleaseYear() != null && t.getReleaseYear().equals(searchYear))))
-                .filter(t -> (searchGenreId == null ||
-                        (t.getGenres() != null && t.getGenres().stream()
-                                .anyMatch(g -> g.getMovieGenreId().equals(searchGenreId)))))
-                .collect(Collectors.toList());
+        MediaTitleSearchCriteria criteria =
+                new MediaTitleSearchCriteria(searchTitleName, searchType, searchYear, searchGenreId);
+        criteria.setFullText(searchFullText);
+        lazyTitles.setCriteria(criteria);
+        resetCatalogPagination();
     }
 
     // Acción del botón "Limpiar"
@@ -270,7 +405,25 @@ public class MediaTitleBean implements Serializable {
         searchType = null;
         searchYear = null;
         searchGenreId = null;
-        filteredTitles = null;
+        searchFullText = false;
+        lazyTitles.setCriteria(null);
+        resetCatalogPagination();
+    }
+
+    // Autocompletado del campo "Nombre" (índice de trigramas en memoria)
+    public List<String> suggestTitles(String query) {
+        return titleSuggestionIndex.suggest(query, 10).stream()
+                .map(TitleSuggestionDTO::getTitleName)
+                .collect(Collectors.toList());
+    }
+
+    private void resetCatalogPagination() {
+        FacesContext ctx = FacesContext.getCurrentInstance();
+        if (ctx == null) return;
+        UIComponent table = ctx.getViewRoot().findComponent("catalogoForm:catalogoTable");
+        if (table instanceof DataTable) {
+            ((DataTable) table).setFirst(0);
+        }
     }
 
     // ======= Getters/Setters =======
@@ -306,6 +459,14 @@ public class MediaTitleBean implements Serializable {
         this.searchGenreId = searchGenreId;
     }
 
+    public boolean isSearchFullText() {
+        return searchFullText;
+    }
+
+    public void setSearchFullText(boolean searchFullText) {
+        this.searchFullText = searchFullText;
+    }
+
     public List<MovieGenre> getAvailableGenres() {
         return availableGenres;
     }
@@ -314,12 +475,12 @@ public class MediaTitleBean implements Serializable {
         this.availableGenres = availableGenres;
     }
 
-    public List<MediaTitle> getFilteredTitles() {
-        return filteredTitles;
+    public MediaTitleLazyDataModel getLazyTitles() {
+        return lazyTitles;
     }
 
-    public void setFilteredTitles(List<MediaTitle> filteredTitles) {
-        this.filteredTitles = filteredTitles;
+    public String getUploadChannelUser() {
+        return uploadChannelUser;
     }
 
 }
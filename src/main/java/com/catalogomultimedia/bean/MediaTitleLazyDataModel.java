@@ -0,0 +1,148 @@
+package com.catalogomultimedia.bean;
+
+import com.catalogomultimedia.dtos.MediaTitleSearchCriteria;
+import com.catalogomultimedia.entity.MediaTitle;
+import com.catalogomultimedia.service.MediaTitleService;
+import org.primefaces.model.FilterMeta;
+import org.primefaces.model.LazyDataModel;
+import org.primefaces.model.SortMeta;
+import org.primefaces.model.SortOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modelo perezoso de catalogoTable: cada página pide a la BD solo las filas que muestra.
+ * Si se avanza a la página siguiente con el orden por defecto se usa keyset en lugar de OFFSET.
+ */
+public class MediaTitleLazyDataModel extends LazyDataModel<MediaTitle> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final MediaTitleService mediaTitleService;
+
+    private MediaTitleSearchCriteria criteria = new MediaTitleSearchCriteria();
+    private Long cachedCount;
+
+    // Última página servida (para continuar por keyset)
+    private MediaTitleSearchCriteria lastCriteria;
+    private int lastFirst = -1;
+    private int lastPageSize;
+    private LocalDateTime lastCreatedAt;
+    private Long lastId;
+
+    private List<MediaTitle> page = List.of();
+
+    public MediaTitleLazyDataModel(MediaTitleService mediaTitleService) {
+        this.mediaTitleService = mediaTitleService;
+    }
+
+    @Override
+    public List<MediaTitle> load(int first, int pageSize, Map<String, SortMeta> sortBy, Map<String, FilterMeta> filterBy) {
+        MediaTitleSearchCriteria effective = applyColumnFilters(filterBy);
+        SortMeta sort = firstSort(sortBy);
+
+        if (!effective.equals(lastCriteria) || first == 0) {
+            cachedCount = null;
+        }
+        if (cachedCount == null) {
+            cachedCount = effective.isFullTextSearch()
+                    ? mediaTitleService.countFullText(effective)
+                    : mediaTitleService.count(effective);
+        }
+        setRowCount(cachedCount.intValue());
+
+        if (effective.isFullTextSearch()) {
+            // Por relevancia: el orden lo fija el ranking, no la columna
+            page = mediaTitleService.fullTextSearch(effective, first, pageSize);
+            lastCriteria = effective;
+            lastFirst = first;
+            lastPageSize = pageSize;
+            lastCreatedAt = null;
+            lastId = null;
+            return page;
+        }
+
+        boolean nextPage = sort == null
+                && effective.equals(lastCriteria)
+                && pageSize == lastPageSize
+                && first == lastFirst + lastPageSize
+                && lastId != null;
+
+        if (nextPage) {
+            page = mediaTitleService.searchAfter(effective, lastCreatedAt, lastId, pageSize);
+        } else {
+            page = mediaTitleService.search(effective, first, pageSize,
+                    sort != null ? sort.getField() : null,
+                    sort == null || sort.getOrder() != SortOrder.DESCENDING);
+        }
+
+        lastCriteria = effective;
+        lastFirst = first;
+        lastPageSize = pageSize;
+        if (!page.isEmpty()) {
+            MediaTitle last = page.get(page.size() - 1);
+            lastCreatedAt = last.getCreatedAt();
+            lastId = last.getMediaTitleId();
+        } else {
+            lastCreatedAt = null;
+            lastId = null;
+        }
+        return page;
+    }
+
+    @Override
+    public String getRowKey(MediaTitle title) {
+        return title.getMediaTitleId() != null ? title.getMediaTitleId().toString() : null;
+    }
+
+    @Override
+    public MediaTitle getRowData(String rowKey) {
+        if (rowKey == null) return null;
+        for (MediaTitle title : page) {
+            if (rowKey.equals(getRowKey(title))) {
+                return title;
+            }
+        }
+        return null;
+    }
+
+    // El filtro de la columna "Título" se suma al de la barra de búsqueda
+    private MediaTitleSearchCriteria applyColumnFilters(Map<String, FilterMeta> filterBy) {
+        MediaTitleSearchCriteria effective = criteria.copy();
+        if (filterBy == null) return effective;
+
+        FilterMeta nameFilter = filterBy.get("titleName");
+        if (nameFilter != null && nameFilter.getFilterValue() != null && !effective.hasTitleName()) {
+            effective.setTitleName(nameFilter.getFilterValue().toString());
+        }
+        return effective;
+    }
+
+    private static SortMeta firstSort(Map<String, SortMeta> sortBy) {
+        if (sortBy == null) return null;
+        return sortBy.values().stream()
+                .filter(s -> s.getOrder() != null && s.getOrder() != SortOrder.UNSORTED)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Fuerza a recontar y a recargar por OFFSET (p. ej. después de guardar o eliminar)
+     */
+    public void invalidate() {
+        cachedCount = null;
+        lastCriteria = null;
+        lastId = null;
+    }
+
+    public MediaTitleSearchCriteria getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(MediaTitleSearchCriteria criteria) {
+        this.criteria = criteria != null ? criteria : new MediaTitleSearchCriteria();
+        invalidate();
+    }
+}
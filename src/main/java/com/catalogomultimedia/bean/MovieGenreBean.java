@@ -1,5 +1,6 @@
 package com.catalogomultimedia.bean;
 
+import com.catalogomultimedia.dtos.GenreSummaryDTO;
 import com.catalogomultimedia.entity.MovieGenre;
 import com.catalogomultimedia.service.MovieGenreService;
 import jakarta.annotation.PostConstruct;
@@ -28,6 +29,7 @@ public class MovieGenreBean implements Serializable {
 
     private MovieGenre genero;
     private List<MovieGenre> generos;
+    private List<GenreSummaryDTO> resumenGeneros;
     private boolean dialogVisible;
 
     @PostConstruct
@@ -37,9 +39,10 @@ public class MovieGenreBean implements Serializable {
         cargarGeneros();
     }
 
-    // 📦 Cargar lista de géneros
+    // 📦 Cargar lista de géneros (una consulta: la tabla pinta el resumen con su número de títulos)
     public void cargarGeneros() {
-        generos = movieGenreService.findAll();
+        resumenGeneros = movieGenreService.listWithTitleCounts();
+        generos = null;
     }
 
     // 🆕 Nuevo género
@@ -137,7 +140,11 @@ public class MovieGenreBean implements Serializable {
         this.genero = genero;
     }
 
+    // Entidades solo si alguien las pide; se recargan tras cada cambio
     public List<MovieGenre> getGeneros() {
+        if (generos == null) {
+            generos = movieGenreService.findAll();
+        }
         return generos;
     }
 
@@ -145,6 +152,10 @@ public class MovieGenreBean implements Serializable {
         this.generos = generos;
     }
 
+    public List<GenreSummaryDTO> getResumenGeneros() {
+        return resumenGeneros;
+    }
+
     public boolean isDialogVisible() {
         return dialogVisible;
     }
@@ -0,0 +1,46 @@
+package com.catalogomultimedia.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+/**
+ * Efectos secundarios de una escritura (cachés, índices en memoria) que solo deben verse cuando la
+ * transacción se haya confirmado: antes, otra petición podría leer y cachear datos aún sin confirmar,
+ * y tras un rollback quedarían entradas fantasma.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Ejecuta la acción al confirmarse la transacción activa del EntityManager (no si se revierte);
+     * sin transacción activa se ejecuta en el momento
+     */
+    public static void run(EntityManager em, Runnable action) {
+        Transaction tx = em.unwrap(Session.class).getTransaction();
+        if (!tx.isActive()) {
+            action.run();
+            return;
+        }
+        tx.registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) return;
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    // La escritura ya está confirmada: un fallo aquí no debe convertirse en error del guardado
+                    System.out.println("[AfterCommit] Error tras confirmar la transacción: " + e.getMessage());
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.catalogomultimedia.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import jakarta.enterprise.inject.Typed;
+import jakarta.inject.Inject;
+
+/**
+ * Pool de conexiones (HikariCP) que usa Hibernate en lugar de su pool interno.
+ * Tamaño, timeouts y detección de fugas se configuran con DB_POOL_*.
+ */
+@ApplicationScoped
+public class DataSourceProducer {
+
+    @Inject
+    private PoolMetrics poolMetrics;
+
+    @Produces
+    @ApplicationScoped
+    @Typed(HikariDataSource.class)
+    public HikariDataSource createDataSource() {
+        HikariConfig config = poolConfig("catalogo-db",
+                System.getProperty("DB_URL"),
+                System.getProperty("DB_USER"),
+                System.getProperty("DB_PASSWORD"),
+                Integer.parseInt(System.getProperty("DB_POOL_MAX_SIZE", "20")),
+                poolMetrics);
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        System.out.println("[DataSourceProducer] Pool " + config.getPoolName()
+                + " máx=" + config.getMaximumPoolSize() + " mínIdle=" + config.getMinimumIdle());
+        return dataSource;
+    }
+
+    public void closeDataSource(@Disposes HikariDataSource dataSource) {
+        dataSource.close();
+        System.out.println("[DataSourceProducer] Pool cerrado");
+    }
+
+    /**
+     * Configuración común del primario y de la réplica; solo cambian la URL, las credenciales y el tamaño
+     */
+    static HikariConfig poolConfig(String poolName, String url, String user, String password,
+                                   int maxSize, MetricsTrackerFactory metrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        if (System.getProperty("DB_DRIVER") != null) {
+            config.setDriverClassName(System.getProperty("DB_DRIVER"));
+        }
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+
+        config.setMaximumPoolSize(maxSize);
+        config.setMinimumIdle(Math.min(maxSize, Integer.parseInt(System.getProperty("DB_POOL_MIN_IDLE", "5"))));
+        // Por debajo de los 30 s de Hikari: en un pico es mejor fallar rápido que encolar peticiones
+        config.setConnectionTimeout(Long.parseLong(System.getProperty("DB_POOL_CONNECTION_TIMEOUT_MS", "5000")));
+        config.setValidationTimeout(Long.parseLong(System.getProperty("DB_POOL_VALIDATION_TIMEOUT_MS", "3000")));
+        config.setIdleTimeout(Long.parseLong(System.getProperty("DB_POOL_IDLE_TIMEOUT_MS", "600000")));
+        config.setMaxLifetime(Long.parseLong(System.getProperty("DB_POOL_MAX_LIFETIME_MS", "1800000")));
+        // Avisa en el log (con la traza de quien la pidió) de conexiones retenidas más de este tiempo; 0 = desactivado
+        config.setLeakDetectionThreshold(Long.parseLong(System.getProperty("DB_POOL_LEAK_DETECTION_MS", "30000")));
+        config.setMetricsTrackerFactory(metrics);
+
+        if (url != null && url.startsWith("jdbc:postgresql")) {
+            // Los lotes JDBC de Hibernate y de la importación masiva viajan como un único INSERT multi-fila
+            config.addDataSourceProperty("reWriteBatchedInserts", "true");
+        }
+        return config;
+    }
+}
@@ -0,0 +1,56 @@
+package com.catalogomultimedia.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Destino de las conexiones que pida el hilo actual. Lo fija JpaTransactionInterceptor antes de abrir
+ * la transacción (la conexión se obtiene al empezarla) y lo lee RoutingDataSource.
+ * Fijado a PRIMARY fuera de una transacción (onPrimary), las de solo lectura tampoco van a la réplica.
+ */
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA;
+
+    private static final ThreadLocal<DataSourceRoute> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Ruta del hilo actual; sin fijar equivale a PRIMARY
+     */
+    public static DataSourceRoute current() {
+        DataSourceRoute route = CURRENT.get();
+        return route != null ? route : PRIMARY;
+    }
+
+    /**
+     * True si el hilo fijó expresamente el primario (onPrimary o una transacción de escritura en curso)
+     */
+    public static boolean isPinnedToPrimary() {
+        return CURRENT.get() == PRIMARY;
+    }
+
+    /**
+     * Ejecuta la acción con todas sus lecturas en el primario. Para recargar cachés justo después de una
+     * escritura: la réplica puede no tenerla todavía y la copia vieja se serviría durante todo el TTL.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        DataSourceRoute previous = set(PRIMARY);
+        try {
+            return action.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * Fija la ruta del hilo y devuelve la anterior (null si no había) para restaurarla después
+     */
+    public static DataSourceRoute set(DataSourceRoute route) {
+        DataSourceRoute previous = CURRENT.get();
+        if (route == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(route);
+        }
+        return previous;
+    }
+}
@@ -2,48 +2,126 @@ package com.catalogomultimedia.config;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.context.RequestScoped;
+import jakarta.enterprise.inject.Disposes;
 import jakarta.enterprise.inject.Produces;
-import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.SharedCacheMode;
 import org.hibernate.cfg.AvailableSettings;
-import org.reflections.Reflections;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 @ApplicationScoped
 public class JpaProducer {
 
+    // Lo escribe EntityIndexProcessor al compilar (el procesador no va en el WAR)
+    private static final String ENTITY_INDEX = "META-INF/entity-index.txt";
+
     @Produces
     @ApplicationScoped
-    public EntityManagerFactory createEntityManagerFactory() {
+    public EntityManagerFactory createEntityManagerFactory(RoutingDataSource dataSource,
+                                                          SchemaMigrator schemaMigrator,
+                                                          StartupTimings startupTimings) {
+        // 🧱 El esquema lo crean las migraciones versionadas antes de arrancar Hibernate
+        long start = System.currentTimeMillis();
+        schemaMigrator.migrate();
+        startupTimings.duration("Migraciones", System.currentTimeMillis() - start);
+
         Map<String, Object> props = new HashMap<>();
-        props.put("jakarta.persistence.jdbc.driver", System.getProperty("DB_DRIVER"));
-        props.put("jakarta.persistence.jdbc.url", System.getProperty("DB_URL"));
-        props.put("jakarta.persistence.jdbc.user", System.getProperty("DB_USER"));
-        props.put("jakarta.persistence.jdbc.password", System.getProperty("DB_PASSWORD"));
+        // 🔌 Conexiones del pool de DataSourceProducer (no del pool interno de Hibernate); las de solo lectura, de la réplica
+        props.put(AvailableSettings.DATASOURCE, dataSource);
 
         props.put("hibernate.dialect", System.getProperty("HIBERNATE_DIALECT"));
-        props.put("hibernate.hbm2ddl.auto", System.getProperty("HIBERNATE_DDL"));
+        props.put("hibernate.hbm2ddl.auto", schemaAction(schemaMigrator));
         props.put("hibernate.show_sql", System.getProperty("HIBERNATE_SHOW_SQL"));
         props.put("hibernate.format_sql", System.getProperty("HIBERNATE_FORMAT_SQL"));
-        props.put("hibernate.archive.autodetection", "class");
+        // Las entidades llegan de la lista generada al compilar: sin escanear el classpath al arrancar
+        props.put("hibernate.archive.autodetection", "none");
+        // La conexión se devuelve al pool al terminar cada transacción, no al cerrar el EntityManager
+        props.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+
+        // 📦 Escrituras agrupadas en lotes JDBC (requiere ids por secuencia, no IDENTITY)
+        props.put(AvailableSettings.STATEMENT_BATCH_SIZE, System.getProperty("HIBERNATE_BATCH_SIZE", "50"));
+        props.put(AvailableSettings.ORDER_INSERTS, "true");
+        props.put(AvailableSettings.ORDER_UPDATES, "true");
+        props.put(AvailableSettings.BATCH_VERSIONED_DATA, "true");
+        props.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, "pooled");
+
+        // 🗄️ Caché de segundo nivel en proceso (JCache + Caffeine, regiones en application.conf)
+        boolean l2Cache = Boolean.parseBoolean(System.getProperty("HIBERNATE_L2_CACHE", "true"));
+        props.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, String.valueOf(l2Cache));
+        props.put(AvailableSettings.USE_QUERY_CACHE, String.valueOf(l2Cache));
+        if (l2Cache) {
+            props.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            props.put("hibernate.javax.cache.provider",
+                    "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider");
+            props.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+            props.put(AvailableSettings.JPA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+        }
+        props.put(AvailableSettings.GENERATE_STATISTICS, System.getProperty("HIBERNATE_STATISTICS", "true"));
 
 
         props.put("", System.getProperty("AZURE_STORAGE_STREAM"));
 
-        // escanea el/los paquetes donde se encuetran los @Entity
-        Set<Class<?>> entities = new Reflections("com.catalogomultimedia.entity")
-                .getTypesAnnotatedWith(Entity.class);
-        // si se tienen más paquetes, se debe repetir con otro Reflections y añadir al set
+        props.put(AvailableSettings.LOADED_CLASSES, loadEntityIndex());
 
-        props.put(AvailableSettings.LOADED_CLASSES, new ArrayList<>(entities));
+        start = System.currentTimeMillis();
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("CatalogoMultimediaPU", props);
+        startupTimings.duration("Creación del EntityManagerFactory", System.currentTimeMillis() - start);
+        startupTimings.mark("EntityManagerFactory listo");
+        return emf;
+    }
 
-        return Persistence.createEntityManagerFactory("CatalogoMultimediaPU", props);
+    // Clases @Entity listadas al compilar por EntityIndexProcessor (cualquier paquete)
+    private static List<Class<?>> loadEntityIndex() {
+        ClassLoader cl = JpaProducer.class.getClassLoader();
+        try (InputStream in = cl.getResourceAsStream(ENTITY_INDEX)) {
+            if (in == null) {
+                throw new IllegalStateException("No se encontró " + ENTITY_INDEX
+                        + ": el proyecto debe compilarse con EntityIndexProcessor");
+            }
+            List<Class<?>> entities = new ArrayList<>();
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (!line.isBlank()) {
+                        entities.add(Class.forName(line.trim(), false, cl));
+                    }
+                }
+            }
+            return entities;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Índice de entidades inválido: " + e.getMessage(), e);
+        }
+    }
+
+    // Con migraciones Hibernate solo comprueba que las entidades encajan con el esquema (o nada)
+    private static String schemaAction(SchemaMigrator schemaMigrator) {
+        String configured = System.getProperty("HIBERNATE_DDL");
+        if (!schemaMigrator.isEnabled() || "none".equals(configured)) {
+            return configured;
+        }
+        if (configured != null && !"validate".equals(configured)) {
+            System.out.println("[JpaProducer] HIBERNATE_DDL=" + configured + " ignorado: el esquema lo gestionan las migraciones");
+        }
+        return "validate";
+    }
+
+    public void closeEntityManagerFactory(@Disposes EntityManagerFactory emf) {
+        if (emf.isOpen()) {
+            emf.close();
+        }
     }
 
     @Produces
@@ -51,5 +129,15 @@ public class JpaProducer {
     public EntityManager createEntityManager(EntityManagerFactory emf) {
         return emf.createEntityManager();
     }
+
+    // Al terminar la petición se libera el contexto de persistencia
+    public void closeEntityManager(@Disposes EntityManager em) {
+        if (em.isOpen()) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            em.close();
+        }
+    }
 }
 
@@ -0,0 +1,153 @@
+package com.catalogomultimedia.config;
+
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ContextNotActiveException;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Abre y cierra la transacción de los métodos @JpaTransactional sobre el EntityManager de la petición.
+ * Si ya hay una transacción activa el método se une a ella (llamadas entre servicios); un método de escritura
+ * no puede unirse a una de solo lectura (IllegalStateException).
+ *
+ * Las de solo lectura se enrutan a la réplica (RoutingDataSource), salvo justo después de una escritura
+ * de la misma petición o sesión: durante DB_REPLICA_STICKY_MS esas lecturas siguen yendo al primario.
+ * Tampoco van a la réplica las que corren dentro de DataSourceRoute.onPrimary (recarga de cachés).
+ */
+@JpaTransactional
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class JpaTransactionInterceptor {
+
+    // Atributos de petición y sesión que marcan una escritura reciente (lectura de lo propio en el primario)
+    private static final String WROTE_IN_REQUEST = JpaTransactionInterceptor.class.getName() + ".wrote";
+    private static final String PRIMARY_UNTIL = JpaTransactionInterceptor.class.getName() + ".primaryUntil";
+
+    @Inject
+    EntityManager em;
+
+    @Inject
+    RoutingDataSource routingDataSource;
+
+    @Inject
+    HttpServletRequest request;
+
+    @AroundInvoke
+    public Object around(InvocationContext ctx) throws Exception {
+        EntityTransaction tx = em.getTransaction();
+        JpaTransactional config = bindingOf(ctx);
+        boolean readOnly = config != null && config.readOnly();
+        Session session = em.unwrap(Session.class);
+
+        if (tx.isActive()) {
+            // Una escritura dentro de una transacción de solo lectura iría a la réplica y sin flush: sus cambios se perderían
+            if (!readOnly && session.isDefaultReadOnly()) {
+                throw new IllegalStateException(ctx.getMethod().getDeclaringClass().getSimpleName()
+                        + "." + ctx.getMethod().getName() + " escribe y se llamó dentro de una transacción de solo lectura");
+            }
+            return ctx.proceed();
+        }
+
+        if (readOnly) {
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            session.setDefaultReadOnly(true);
+        } else {
+            makeWritable(session);
+        }
+
+        // La conexión se obtiene en tx.begin(): la ruta tiene que estar fijada antes
+        boolean replica = readOnly && routingDataSource.isReplicaConfigured()
+                && !DataSourceRoute.isPinnedToPrimary() && !wroteRecently();
+        DataSourceRoute previousRoute = DataSourceRoute.set(replica ? DataSourceRoute.REPLICA : DataSourceRoute.PRIMARY);
+
+        tx.begin();
+        try {
+            Object result = ctx.proceed();
+            // También se confirma la de solo lectura: un rollback dejaría desasociadas las entidades cargadas
+            if (tx.getRollbackOnly()) {
+                tx.rollback();
+            } else {
+                tx.commit();
+                if (!readOnly) {
+                    rememberWrite();
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        } finally {
+            DataSourceRoute.set(previousRoute);
+            if (readOnly) {
+                session.setDefaultReadOnly(false);
+                session.setHibernateFlushMode(FlushMode.AUTO);
+            }
+        }
+    }
+
+    // La del método tiene prioridad sobre la de la clase (anotaciones leídas a mano: la API de bindings es de EE 11)
+    private static JpaTransactional bindingOf(InvocationContext ctx) {
+        Method method = ctx.getMethod();
+        if (method != null && method.isAnnotationPresent(JpaTransactional.class)) {
+            return method.getAnnotation(JpaTransactional.class);
+        }
+        Class<?> type = ctx.getTarget().getClass();
+        // Subclases de proxy generadas por el contenedor (Weld: Clase$Proxy$_$$_WeldSubclass)
+        while (type.getSuperclass() != null && (type.isSynthetic() || type.getName().contains("$$"))) {
+            type = type.getSuperclass();
+        }
+        return type.getAnnotation(JpaTransactional.class);
+    }
+
+    private boolean wroteRecently() {
+        try {
+            if (request.getAttribute(WROTE_IN_REQUEST) != null) return true;
+            HttpSession httpSession = request.getSession(false);
+            if (httpSession == null) return false;
+            Object until = httpSession.getAttribute(PRIMARY_UNTIL);
+            return until instanceof Long millis && millis > System.currentTimeMillis();
+        } catch (ContextNotActiveException | IllegalStateException e) {
+            // Fuera de una petición HTTP (o sesión ya invalidada) no hay escrituras propias que esperar
+            return false;
+        }
+    }
+
+    private void rememberWrite() {
+        if (!routingDataSource.isReplicaConfigured()) return;
+        try {
+            request.setAttribute(WROTE_IN_REQUEST, Boolean.TRUE);
+            HttpSession httpSession = request.getSession(false);
+            if (httpSession != null) {
+                httpSession.setAttribute(PRIMARY_UNTIL, System.currentTimeMillis() + routingDataSource.getStickyMillis());
+            }
+        } catch (ContextNotActiveException | IllegalStateException e) {
+            // Sin petición no hay lecturas posteriores de la misma sesión que proteger
+        }
+    }
+
+    // Entidades cargadas antes en solo lectura dentro de la misma petición: vuelven a comprobarse sus cambios
+    private static void makeWritable(Session session) {
+        SessionImplementor implementor = session.unwrap(SessionImplementor.class);
+        if (implementor.getPersistenceContextInternal().getNumberOfManagedEntities() == 0) return;
+        for (Map.Entry<Object, EntityEntry> entry : implementor.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entry.getValue().isReadOnly()) {
+                session.setReadOnly(entry.getKey(), false);
+            }
+        }
+    }
+}
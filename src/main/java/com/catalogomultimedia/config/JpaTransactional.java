@@ -0,0 +1,28 @@
+package com.catalogomultimedia.config;
+
+import jakarta.enterprise.util.Nonbinding;
+import jakarta.interceptor.InterceptorBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ejecuta el método en una transacción del EntityManager de la petición (ver JpaTransactionInterceptor).
+ * En la clase aplica a todos sus métodos; en un método tiene prioridad sobre la de la clase.
+ *
+ * readOnly: sin flush ni comprobación de cambios; las entidades cargadas quedan en solo lectura, así
+ * que una entidad obtenida en un método readOnly no debe modificarse en sitio para luego guardarla
+ * (los métodos de escritura hacen merge de la copia recibida).
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface JpaTransactional {
+
+    @Nonbinding
+    boolean readOnly() default false;
+}
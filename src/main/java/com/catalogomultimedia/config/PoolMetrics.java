@@ -0,0 +1,105 @@
+package com.catalogomultimedia.config;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Métricas del pool de conexiones que Hikari no expone por sí mismo: latencia de obtención de una
+ * conexión (media, máxima e histograma), tiempo de uso y timeouts.
+ */
+@ApplicationScoped
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    // Límites superiores (ms) de los tramos del histograma de obtención; el último tramo es "el resto"
+    private static final long[] ACQUIRE_BUCKETS_MS = {1, 5, 20, 100, 500, 1000};
+
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireNanos = new AtomicLong();
+    private final AtomicLong acquireMaxNanos = new AtomicLong();
+    private final AtomicLongArray acquireHistogram = new AtomicLongArray(ACQUIRE_BUCKETS_MS.length + 1);
+    private final AtomicLong usageCount = new AtomicLong();
+    private final AtomicLong usageMillis = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                created.incrementAndGet();
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireCount.incrementAndGet();
+                acquireNanos.addAndGet(elapsedAcquiredNanos);
+                acquireMaxNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+                acquireHistogram.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMillis(elapsedAcquiredNanos)));
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageCount.incrementAndGet();
+                usageMillis.addAndGet(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.incrementAndGet();
+            }
+        };
+    }
+
+    public long getAcquireCount() {
+        return acquireCount.get();
+    }
+
+    public double getAverageAcquireMillis() {
+        long count = acquireCount.get();
+        return count == 0 ? 0 : acquireNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxAcquireMillis() {
+        return acquireMaxNanos.get() / 1e6;
+    }
+
+    public double getAverageUsageMillis() {
+        long count = usageCount.get();
+        return count == 0 ? 0 : (double) usageMillis.get() / count;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getCreatedCount() {
+        return created.get();
+    }
+
+    /**
+     * Histograma de obtención como texto: "<=1ms:120 <=5ms:3 ... >1000ms:0"
+     */
+    public String getAcquireHistogram() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ACQUIRE_BUCKETS_MS.length; i++) {
+            sb.append("<=").append(ACQUIRE_BUCKETS_MS[i]).append("ms:").append(acquireHistogram.get(i)).append(' ');
+        }
+        sb.append('>').append(ACQUIRE_BUCKETS_MS[ACQUIRE_BUCKETS_MS.length - 1]).append("ms:")
+                .append(acquireHistogram.get(ACQUIRE_BUCKETS_MS.length));
+        return sb.toString();
+    }
+
+    private static int bucketOf(long millis) {
+        for (int i = 0; i < ACQUIRE_BUCKETS_MS.length; i++) {
+            if (millis <= ACQUIRE_BUCKETS_MS[i]) return i;
+        }
+        return ACQUIRE_BUCKETS_MS.length;
+    }
+}
@@ -0,0 +1,253 @@
+package com.catalogomultimedia.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * DataSource que entrega Hibernate: las transacciones de solo lectura (DataSourceRoute.REPLICA) van a la
+ * réplica configurada con DB_REPLICA_*, el resto al pool primario. Sin DB_REPLICA_URL todo va al primario.
+ *
+ * La réplica se descarta mientras su retraso de replicación supere DB_REPLICA_MAX_LAG_MS o no responda;
+ * en ese caso las lecturas vuelven al primario hasta la siguiente comprobación.
+ */
+@ApplicationScoped
+public class RoutingDataSource implements DataSource {
+
+    private static final String LAG_SQL =
+            "SELECT pg_is_in_recovery(), " +
+            "       CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            // Sin WAL pendiente está al día aunque la última transacción reproducida sea antigua
+            "            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) " +
+            "       END::bigint";
+
+    @Inject
+    private HikariDataSource primary;
+
+    private HikariDataSource replica;
+    private final PoolMetrics replicaMetrics = new PoolMetrics();
+    private ScheduledExecutorService lagChecker;
+
+    private long maxLagMillis;
+    private long stickyMillis;
+    private volatile boolean replicaHealthy;
+    private volatile long lastLagMillis = -1;
+    private volatile boolean warnedNotInRecovery;
+
+    private final AtomicLong primaryConnections = new AtomicLong();
+    private final AtomicLong replicaConnections = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+    private final AtomicLong lagTrips = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        String url = System.getProperty("DB_REPLICA_URL");
+        if (url == null || url.isBlank()) {
+            System.out.println("[RoutingDataSource] Sin réplica (DB_REPLICA_URL vacío): todo al primario");
+            return;
+        }
+        maxLagMillis = Long.parseLong(System.getProperty("DB_REPLICA_MAX_LAG_MS", "5000"));
+        long checkMillis = Long.parseLong(System.getProperty("DB_REPLICA_LAG_CHECK_MS", "2000"));
+        // Tras una escritura la sesión lee del primario al menos lo que la réplica puede ir por detrás
+        stickyMillis = Long.parseLong(System.getProperty("DB_REPLICA_STICKY_MS",
+                String.valueOf(maxLagMillis + checkMillis)));
+
+        HikariConfig config = DataSourceProducer.poolConfig("catalogo-db-replica",
+                url,
+                System.getProperty("DB_REPLICA_USER", System.getProperty("DB_USER")),
+                System.getProperty("DB_REPLICA_PASSWORD", System.getProperty("DB_PASSWORD")),
+                Integer.parseInt(System.getProperty("DB_REPLICA_POOL_MAX_SIZE",
+                        System.getProperty("DB_POOL_MAX_SIZE", "20"))),
+                replicaMetrics);
+        // El driver abre las conexiones en modo solo lectura: una escritura mal enrutada falla en vez de perderse.
+        // Antes de crear el pool: al arrancar, Hikari sella la configuración
+        config.setReadOnly(true);
+        // Una réplica caída al arrancar no detiene el despliegue: el pool se crea sin conectar y checkLag
+        // la habilita en cuanto responda
+        config.setInitializationFailTimeout(-1);
+        replica = new HikariDataSource(config);
+
+        checkLag();
+        if (!replicaHealthy) {
+            System.out.println("[RoutingDataSource] Réplica no disponible al arrancar, lecturas al primario hasta que responda");
+        }
+        lagChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replica-lag-check");
+            t.setDaemon(true);
+            return t;
+        });
+        lagChecker.scheduleWithFixedDelay(this::checkLag, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        System.out.println("[RoutingDataSource] Réplica " + url + " retrasoMáx=" + maxLagMillis
+                + " ms pegajosidad=" + stickyMillis + " ms");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (lagChecker != null) {
+            lagChecker.shutdownNow();
+        }
+        if (replica != null) {
+            replica.close();
+            System.out.println("[RoutingDataSource] Pool de réplica cerrado");
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (DataSourceRoute.current() == DataSourceRoute.REPLICA && replica != null) {
+            if (replicaHealthy) {
+                try {
+                    Connection connection = replica.getConnection();
+                    replicaConnections.incrementAndGet();
+                    return connection;
+                } catch (SQLException e) {
+                    // Hasta la próxima comprobación de retraso no se vuelve a intentar
+                    replicaHealthy = false;
+                    System.out.println("[RoutingDataSource] Réplica sin conexión, lecturas al primario: " + e.getMessage());
+                }
+            }
+            fallbacks.incrementAndGet();
+        }
+        Connection connection = primary.getConnection();
+        primaryConnections.incrementAndGet();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Las credenciales se configuran en el pool");
+    }
+
+    private void checkLag() {
+        try (Connection connection = replica.getConnection();
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(LAG_SQL)) {
+            rs.next();
+            boolean inRecovery = rs.getBoolean(1);
+            long lag = rs.getLong(2);
+            if (!inRecovery && !warnedNotInRecovery) {
+                warnedNotInRecovery = true;
+                System.out.println("[RoutingDataSource] La réplica no está en recuperación: no se puede medir su retraso");
+            }
+            lastLagMillis = lag;
+            setHealthy(lag <= maxLagMillis, "retraso " + lag + " ms");
+        } catch (Exception e) {
+            lastLagMillis = -1;
+            setHealthy(false, e.getMessage());
+        }
+    }
+
+    private void setHealthy(boolean healthy, String reason) {
+        if (healthy == replicaHealthy) return;
+        replicaHealthy = healthy;
+        if (!healthy) {
+            lagTrips.incrementAndGet();
+        }
+        System.out.println("[RoutingDataSource] Réplica " + (healthy ? "habilitada" : "deshabilitada") + " (" + reason + ")");
+    }
+
+    public boolean isReplicaConfigured() {
+        return replica != null;
+    }
+
+    public boolean isReplicaHealthy() {
+        return replica != null && replicaHealthy;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    public PoolMetrics getReplicaMetrics() {
+        return replicaMetrics;
+    }
+
+    /**
+     * Último retraso medido en ms; -1 si la última comprobación falló
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public long getStickyMillis() {
+        return stickyMillis;
+    }
+
+    public long getPrimaryConnections() {
+        return primaryConnections.get();
+    }
+
+    public long getReplicaConnections() {
+        return replicaConnections.get();
+    }
+
+    /**
+     * Lecturas que pedían la réplica y se sirvieron del primario por retraso o caída
+     */
+    public long getFallbackCount() {
+        return fallbacks.get();
+    }
+
+    public long getLagTripCount() {
+        return lagTrips.get();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,261 @@
+package com.catalogomultimedia.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Migraciones versionadas del esquema: aplica en orden los scripts db/migration/Vn__descripcion.sql
+ * del classpath que aún no figuren en schema_version. Se ejecuta antes de crear el EntityManagerFactory,
+ * que solo valida el esquema resultante.
+ *
+ * Un script ya aplicado no se puede modificar (se compara su SHA-256): los cambios van en una versión nueva.
+ * Cada script corre en su propia transacción; si falla no se registra y el arranque se detiene.
+ */
+@ApplicationScoped
+public class SchemaMigrator {
+
+    private static final String LOCATION = "db/migration";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    // Clave del advisory lock: con varias instancias arrancando a la vez solo una migra
+    private static final long LOCK_KEY = 0x43415441_4C4F474FL;
+
+    private static final String CREATE_VERSION_TABLE =
+            "CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "description VARCHAR(200) NOT NULL, " +
+                    "script VARCHAR(200) NOT NULL, " +
+                    "checksum VARCHAR(64) NOT NULL, " +
+                    "installed_at TIMESTAMP NOT NULL DEFAULT now(), " +
+                    "execution_ms BIGINT NOT NULL)";
+
+    @Inject
+    private HikariDataSource dataSource;
+
+    private boolean migrated;
+
+    public SchemaMigrator() {
+    }
+
+    // Fuera del contenedor (pruebas de integración contra una BD temporal)
+    public SchemaMigrator(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * True si las migraciones gestionan el esquema en esta BD (solo PostgreSQL)
+     */
+    public boolean isEnabled() {
+        String url = System.getProperty("DB_URL");
+        return url != null && url.startsWith("jdbc:postgresql")
+                && Boolean.parseBoolean(System.getProperty("DB_MIGRATIONS_ENABLED", "true"));
+    }
+
+    public synchronized void migrate() {
+        if (migrated) return;
+        if (!isEnabled()) {
+            System.out.println("[SchemaMigrator] Migraciones deshabilitadas o BD no PostgreSQL, se omiten");
+            return;
+        }
+
+        List<Migration> migrations = loadMigrations();
+        // Siempre contra el primario: la réplica es de solo lectura
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement st = connection.createStatement()) {
+                st.execute(CREATE_VERSION_TABLE);
+                st.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+            try {
+                Map<Integer, String> applied = appliedChecksums(connection);
+                int executed = 0;
+                for (Migration migration : migrations) {
+                    String checksum = applied.remove(migration.version);
+                    if (checksum == null) {
+                        apply(connection, migration);
+                        executed++;
+                    } else if (!checksum.equals(migration.checksum)) {
+                        throw new IllegalStateException("La migración " + migration.script
+                                + " cambió después de aplicarse (checksum " + checksum + " → " + migration.checksum + ")");
+                    }
+                }
+                for (Integer missing : applied.keySet()) {
+                    System.out.println("[SchemaMigrator] Aviso: versión " + missing + " aplicada en BD sin script en el classpath");
+                }
+                int current = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+                System.out.println("[SchemaMigrator] Esquema en versión " + current + " (" + executed + " migraciones aplicadas)");
+            } finally {
+                try (Statement st = connection.createStatement()) {
+                    st.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Error aplicando migraciones: " + e.getMessage(), e);
+        }
+        migrated = true;
+    }
+
+    private static Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        connection.setAutoCommit(false);
+        try {
+            // El driver separa las sentencias respetando los bloques $$ ... $$ y los comentarios
+            try (Statement st = connection.createStatement()) {
+                st.execute(migration.sql);
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO schema_version (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+                ps.setInt(1, migration.version);
+                ps.setString(2, migration.description);
+                ps.setString(3, migration.script);
+                ps.setString(4, migration.checksum);
+                ps.setLong(5, elapsed);
+                ps.executeUpdate();
+            }
+            connection.commit();
+            System.out.println("[SchemaMigrator] Aplicada " + migration.script + " en " + elapsed + " ms");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw new SQLException("Falló " + migration.script + ": " + e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static List<Migration> loadMigrations() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        List<Migration> migrations = new ArrayList<>();
+        for (String script : listScripts(cl)) {
+            Matcher m = SCRIPT_NAME.matcher(script);
+            if (!m.matches()) {
+                System.out.println("[SchemaMigrator] Se ignora " + script + " (nombre distinto de V<n>__<descripción>.sql)");
+                continue;
+            }
+            try (InputStream in = cl.getResourceAsStream(LOCATION + "/" + script)) {
+                if (in == null) {
+                    throw new IllegalStateException("No se pudo leer " + script);
+                }
+                String sql = new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+                migrations.add(new Migration(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                        script, sql, sha256(sql)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Error leyendo " + script, e);
+            }
+        }
+        migrations.sort(Comparator.comparingInt(migration -> migration.version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version == migrations.get(i - 1).version) {
+                throw new IllegalStateException("Versión de migración duplicada: " + migrations.get(i).script);
+            }
+        }
+        return migrations;
+    }
+
+    // El directorio puede estar desplegado (WEB-INF/classes), dentro de un jar o en el VFS de WildFly
+    private static List<String> listScripts(ClassLoader cl) {
+        URL url = cl.getResource(LOCATION);
+        if (url == null) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>();
+        try {
+            if ("file".equals(url.getProtocol())) {
+                try (Stream<Path> files = Files.list(Paths.get(url.toURI()))) {
+                    files.map(p -> p.getFileName().toString()).filter(n -> n.endsWith(".sql")).forEach(names::add);
+                }
+            } else if ("jar".equals(url.getProtocol())) {
+                JarURLConnection jarConnection = (JarURLConnection) url.openConnection();
+                jarConnection.setUseCaches(false);
+                String prefix = jarConnection.getEntryName() + "/";
+                try (JarFile jar = jarConnection.getJarFile()) {
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        String name = entry.getName();
+                        if (name.startsWith(prefix) && name.endsWith(".sql") && name.indexOf('/', prefix.length()) < 0) {
+                            names.add(name.substring(prefix.length()));
+                        }
+                    }
+                }
+            } else if ("vfs".equals(url.getProtocol())) {
+                // WildFly: el contenido es un org.jboss.vfs.VirtualFile (por reflexión, sin depender de JBoss VFS)
+                Object directory = url.openConnection().getContent();
+                for (Object child : (List<?>) directory.getClass().getMethod("getChildren").invoke(directory)) {
+                    String name = (String) child.getClass().getMethod("getName").invoke(child);
+                    if (name.endsWith(".sql")) {
+                        names.add(name);
+                    }
+                }
+            } else {
+                throw new IllegalStateException("No se pueden listar migraciones en " + url);
+            }
+        } catch (IOException | URISyntaxException | ReflectiveOperationException e) {
+            throw new IllegalStateException("Error listando " + LOCATION, e);
+        }
+        return names;
+    }
+
+    private static String sha256(String sql) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sql.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final String checksum;
+
+        Migration(int version, String description, String script, String sql, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.sql = sql;
+            this.checksum = checksum;
+        }
+    }
+}
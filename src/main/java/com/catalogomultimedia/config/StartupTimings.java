@@ -0,0 +1,66 @@
+package com.catalogomultimedia.config;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tiempos del arranque en frío: hitos medidos desde el inicio de la JVM (migraciones, EntityManagerFactory,
+ * contexto CDI, primer render del dashboard) y duración de los pasos más caros.
+ */
+@ApplicationScoped
+public class StartupTimings {
+
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    // En el orden en que ocurrieron
+    private final Map<String, Long> milestones = new LinkedHashMap<>();
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+    private volatile boolean firstDashboardRendered;
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        mark("Contexto CDI iniciado");
+    }
+
+    /**
+     * Registra un hito (ms desde el inicio de la JVM); solo cuenta la primera vez
+     */
+    public synchronized void mark(String milestone) {
+        milestones.putIfAbsent(milestone, System.currentTimeMillis() - jvmStart);
+    }
+
+    public synchronized void duration(String step, long millis) {
+        durations.putIfAbsent(step, millis);
+    }
+
+    /**
+     * Primer render completo del dashboard: cierra el informe de arranque y lo escribe en el log
+     */
+    public void dashboardRendered(long requestMillis) {
+        if (firstDashboardRendered) return;
+        synchronized (this) {
+            if (firstDashboardRendered) return;
+            firstDashboardRendered = true;
+            duration("Petición del primer dashboard", requestMillis);
+            mark("Primer dashboard renderizado");
+        }
+        System.out.println("[StartupTimings] " + report().replace("\n", " | "));
+    }
+
+    public boolean isFirstDashboardRendered() {
+        return firstDashboardRendered;
+    }
+
+    public synchronized String report() {
+        StringBuilder sb = new StringBuilder();
+        milestones.forEach((name, ms) -> sb.append(name).append(": +").append(ms).append(" ms\n"));
+        durations.forEach((name, ms) -> sb.append(name).append(": ").append(ms).append(" ms\n"));
+        if (!firstDashboardRendered) {
+            sb.append("Dashboard aún sin renderizar\n");
+        }
+        return sb.toString().trim();
+    }
+}
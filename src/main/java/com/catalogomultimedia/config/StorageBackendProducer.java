@@ -0,0 +1,37 @@
+package com.catalogomultimedia.config;
+
+import com.catalogomultimedia.service.AzureBlobStorageService;
+import com.catalogomultimedia.service.LocalFileStorageService;
+import com.catalogomultimedia.service.StorageBackend;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import jakarta.inject.Inject;
+
+import java.util.Locale;
+
+/**
+ * Elige el almacenamiento según STORAGE_BACKEND: "azure" (por defecto) o "local".
+ * Solo se inicializa el backend elegido, así el modo local no necesita AZURE_STORAGE_CONNECTION_STRING.
+ */
+@ApplicationScoped
+public class StorageBackendProducer {
+
+    @Inject
+    private Instance<AzureBlobStorageService> azure;
+
+    @Inject
+    private Instance<LocalFileStorageService> local;
+
+    @Produces
+    @ApplicationScoped
+    public StorageBackend createStorageBackend() {
+        String backend = System.getProperty("STORAGE_BACKEND", "azure").trim().toLowerCase(Locale.ROOT);
+        System.out.println("[StorageBackendProducer] Almacenamiento: " + backend);
+        return switch (backend) {
+            case "azure" -> azure.get();
+            case "local" -> local.get();
+            default -> throw new IllegalStateException("STORAGE_BACKEND no soportado: " + backend);
+        };
+    }
+}
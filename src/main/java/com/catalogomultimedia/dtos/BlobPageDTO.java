@@ -0,0 +1,29 @@
+package com.catalogomultimedia.dtos;
+
+import java.util.List;
+
+/**
+ * Una página de blobs y el token para pedir la siguiente (null si no hay más)
+ */
+public class BlobPageDTO {
+    private final List<MediaFileDTO> items;
+    private final String continuationToken;
+
+    public BlobPageDTO(List<MediaFileDTO> items, String continuationToken) {
+        this.items = items;
+        this.continuationToken = continuationToken;
+    }
+
+    public boolean hasMore() {
+        return continuationToken != null && !continuationToken.isEmpty();
+    }
+
+    // Getters
+    public List<MediaFileDTO> getItems() {
+        return items;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+}
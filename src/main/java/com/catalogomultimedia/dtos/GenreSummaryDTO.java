@@ -0,0 +1,37 @@
+package com.catalogomultimedia.dtos;
+
+import java.io.Serializable;
+
+/**
+ * Género con su número de títulos, sin cargar la colección MovieGenre.mediaTitles
+ */
+public class GenreSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long movieGenreId;
+    private final String genreName;
+    private final long titleCount;
+
+    public GenreSummaryDTO(Long movieGenreId, String genreName, long titleCount) {
+        this.movieGenreId = movieGenreId;
+        this.genreName = genreName;
+        this.titleCount = titleCount;
+    }
+
+    public Long getMovieGenreId() {
+        return movieGenreId;
+    }
+
+    public String getGenreName() {
+        return genreName;
+    }
+
+    public long getTitleCount() {
+        return titleCount;
+    }
+
+    public boolean hasAssociatedTitles() {
+        return titleCount > 0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.catalogomultimedia.dtos;
+
+/**
+ * Resultado de una importación masiva de títulos
+ */
+public class ImportReportDTO {
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsRejected;
+    private final int genresCreated;
+    private final long elapsedMillis;
+    private final String rejectsFile;
+
+    public ImportReportDTO(long rowsRead, long rowsImported, long rowsRejected,
+                           int genresCreated, long elapsedMillis, String rejectsFile) {
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsRejected = rowsRejected;
+        this.genresCreated = genresCreated;
+        this.elapsedMillis = elapsedMillis;
+        this.rejectsFile = rejectsFile;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis <= 0 ? rowsImported : rowsImported * 1000.0 / elapsedMillis;
+    }
+
+    // Getters
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public int getGenresCreated() {
+        return genresCreated;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public String getRejectsFile() {
+        return rejectsFile;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("leídas=%d importadas=%d rechazadas=%d génerosNuevos=%d tiempo=%d ms (%.0f filas/s)%s",
+                rowsRead, rowsImported, rowsRejected, genresCreated, elapsedMillis, getRowsPerSecond(),
+                rejectsFile != null ? " rechazos=" + rejectsFile : "");
+    }
+}
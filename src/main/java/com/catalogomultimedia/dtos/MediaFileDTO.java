@@ -13,6 +13,7 @@ public class MediaFileDTO {
     private FileType fileType;
     private OffsetDateTime uploadedAt;
     private String uploadedBy;
+    private String contentSha256;
 
     private String signedUrl;
     private String publicUrl;
@@ -82,6 +83,14 @@ public class MediaFileDTO {
         this.uploadedBy = uploadedBy;
     }
 
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+
     public String getSignedUrl() {
         return signedUrl;
     }
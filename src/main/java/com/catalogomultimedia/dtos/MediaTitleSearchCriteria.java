@@ -0,0 +1,103 @@
+package com.catalogomultimedia.dtos;
+
+import com.catalogomultimedia.enums.TitleType;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Filtros del catálogo que se traducen a SQL en MediaTitleService
+ */
+public class MediaTitleSearchCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String titleName;
+    private TitleType titleType;
+    private Integer releaseYear;
+    private Long genreId;
+    // Búsqueda por relevancia (tsvector) en lugar de LIKE sobre el nombre
+    private boolean fullText;
+
+    public MediaTitleSearchCriteria() {
+    }
+
+    public MediaTitleSearchCriteria(String titleName, TitleType titleType, Integer releaseYear, Long genreId) {
+        this.titleName = titleName;
+        this.titleType = titleType;
+        this.releaseYear = releaseYear;
+        this.genreId = genreId;
+    }
+
+    public MediaTitleSearchCriteria copy() {
+        MediaTitleSearchCriteria copy = new MediaTitleSearchCriteria(titleName, titleType, releaseYear, genreId);
+        copy.setFullText(fullText);
+        return copy;
+    }
+
+    public boolean hasTitleName() {
+        return titleName != null && !titleName.isBlank();
+    }
+
+    public boolean isFullTextSearch() {
+        return fullText && hasTitleName();
+    }
+
+    // Getters/Setters
+    public String getTitleName() {
+        return titleName;
+    }
+
+    public void setTitleName(String titleName) {
+        this.titleName = titleName;
+    }
+
+    public TitleType getTitleType() {
+        return titleType;
+    }
+
+    public void setTitleType(TitleType titleType) {
+        this.titleType = titleType;
+    }
+
+    public Integer getReleaseYear() {
+        return releaseYear;
+    }
+
+    public void setReleaseYear(Integer releaseYear) {
+        this.releaseYear = releaseYear;
+    }
+
+    public Long getGenreId() {
+        return genreId;
+    }
+
+    public void setGenreId(Long genreId) {
+        this.genreId = genreId;
+    }
+
+    public boolean isFullText() {
+        return fullText;
+    }
+
+    public void setFullText(boolean fullText) {
+        this.fullText = fullText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MediaTitleSearchCriteria)) return false;
+        MediaTitleSearchCriteria that = (MediaTitleSearchCriteria) o;
+        return Objects.equals(titleName, that.titleName)
+                && titleType == that.titleType
+                && Objects.equals(releaseYear, that.releaseYear)
+                && Objects.equals(genreId, that.genreId)
+                && fullText == that.fullText;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(titleName, titleType, releaseYear, genreId, fullText);
+    }
+}
@@ -0,0 +1,111 @@
+package com.catalogomultimedia.dtos;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de una pasada de BlobOrphanReconciler
+ */
+public class ReconcileReportDTO {
+    private final String mode;
+    private final LocalDateTime startedAt;
+    private final long elapsedMillis;
+    private final long blobsScanned;
+    private final long referenced;
+    private final long orphans;
+    private final long youngSkipped;
+    private final long quarantined;
+    private final long deleted;
+    private final long bytesReclaimed;
+    private final long missingBlobs;
+    private final long errors;
+    private final boolean limitReached;
+
+    public ReconcileReportDTO(String mode, LocalDateTime startedAt, long elapsedMillis,
+                              long blobsScanned, long referenced, long orphans, long youngSkipped,
+                              long quarantined, long deleted, long bytesReclaimed,
+                              long missingBlobs, long errors, boolean limitReached) {
+        this.mode = mode;
+        this.startedAt = startedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.blobsScanned = blobsScanned;
+        this.referenced = referenced;
+        this.orphans = orphans;
+        this.youngSkipped = youngSkipped;
+        this.quarantined = quarantined;
+        this.deleted = deleted;
+        this.bytesReclaimed = bytesReclaimed;
+        this.missingBlobs = missingBlobs;
+        this.errors = errors;
+        this.limitReached = limitReached;
+    }
+
+    // Getters
+    public String getMode() {
+        return mode;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getBlobsScanned() {
+        return blobsScanned;
+    }
+
+    public long getReferenced() {
+        return referenced;
+    }
+
+    public long getOrphans() {
+        return orphans;
+    }
+
+    public long getYoungSkipped() {
+        return youngSkipped;
+    }
+
+    public long getQuarantined() {
+        return quarantined;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimed;
+    }
+
+    public long getMissingBlobs() {
+        return missingBlobs;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public boolean isLimitReached() {
+        return limitReached;
+    }
+
+    @Override
+    public String toString() {
+        return "modo=" + mode
+                + " inicio=" + startedAt
+                + " tiempo=" + elapsedMillis + " ms"
+                + " blobs=" + blobsScanned
+                + " referenciados=" + referenced
+                + " huérfanos=" + orphans
+                + " recientes=" + youngSkipped
+                + " cuarentena=" + quarantined
+                + " eliminados=" + deleted
+                + " bytesLiberados=" + bytesReclaimed
+                + " sinBlob=" + missingBlobs
+                + " errores=" + errors
+                + (limitReached ? " (límite de acciones alcanzado)" : "");
+    }
+}
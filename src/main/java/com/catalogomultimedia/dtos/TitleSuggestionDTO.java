@@ -0,0 +1,24 @@
+package com.catalogomultimedia.dtos;
+
+import java.io.Serializable;
+
+public class TitleSuggestionDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long mediaTitleId;
+    private final String titleName;
+
+    public TitleSuggestionDTO(Long mediaTitleId, String titleName) {
+        this.mediaTitleId = mediaTitleId;
+        this.titleName = titleName;
+    }
+
+    public Long getMediaTitleId() {
+        return mediaTitleId;
+    }
+
+    public String getTitleName() {
+        return titleName;
+    }
+}
@@ -0,0 +1,138 @@
+package com.catalogomultimedia.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Índice SHA-256 → blob: si se vuelve a subir el mismo contenido se reutiliza el blob existente
+ */
+@Entity
+@Table(name = "blob_content_hashes")
+public class BlobContentHash implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    @NotNull(message = "El tipo de archivo es obligatorio")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "file_type", nullable = false, length = 20)
+    private MediaFile.FileType fileType;
+
+    @NotBlank(message = "El nombre del blob es obligatorio")
+    @Size(max = 400, message = "El nombre del blob no puede exceder 400 caracteres")
+    @Column(name = "blob_name", nullable = false, length = 400)
+    private String blobName;
+
+    @NotBlank(message = "La URL del blob es obligatoria")
+    @Size(max = 500, message = "La URL no puede exceder 500 caracteres")
+    @Column(name = "blob_url", nullable = false, length = 500)
+    private String blobUrl;
+
+    @Column(name = "etag", length = 100)
+    private String etag;
+
+    @Column(name = "content_type", length = 50)
+    private String contentType;
+
+    @Column(name = "size_bytes")
+    private Long sizeBytes;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Última vez que una subida reutilizó el blob (BlobOrphanReconciler no lo toca durante el periodo de gracia)
+    @Column(name = "last_reused_at")
+    private LocalDateTime lastReusedAt;
+
+    // 🔹 Constructores
+    public BlobContentHash() {
+    }
+
+    // 🔹 Lifecycle callback
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // 🔹 Getters y Setters
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+
+    public MediaFile.FileType getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(MediaFile.FileType fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getBlobName() {
+        return blobName;
+    }
+
+    public void setBlobName(String blobName) {
+        this.blobName = blobName;
+    }
+
+    public String getBlobUrl() {
+        return blobUrl;
+    }
+
+    public void setBlobUrl(String blobUrl) {
+        this.blobUrl = blobUrl;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastReusedAt() {
+        return lastReusedAt;
+    }
+
+    public void setLastReusedAt(LocalDateTime lastReusedAt) {
+        this.lastReusedAt = lastReusedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "BlobContentHash{" +
+                "contentSha256='" + contentSha256 + '\'' +
+                ", blobName='" + blobName + '\'' +
+                '}';
+    }
+}
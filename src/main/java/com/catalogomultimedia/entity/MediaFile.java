@@ -6,13 +6,15 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "media_files")
+@Table(name = "media_files",
+        indexes = @Index(name = "idx_media_files_content_sha256", columnList = "content_sha256"))
 public class MediaFile implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "media_files_seq")
+    @SequenceGenerator(name = "media_files_seq", sequenceName = "media_files_seq", allocationSize = 50)
     @Column(name = "media_file_id")
     private Long id;
 
@@ -53,6 +55,22 @@ public class MediaFile implements Serializable {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    // SHA-256 del contenido en hexadecimal (varios MediaFile pueden compartir blob)
+    @Size(max = 64, message = "El hash no puede exceder 64 caracteres")
+    @Column(name = "content_sha256", length = 64)
+    private String contentSha256;
+
+    // Miniaturas de los pósters (80, 240 y 600 px de ancho): solo las escribe PosterThumbnailService,
+    // así un merge de un MediaFile desactualizado no las pisa
+    @Column(name = "thumbnail_small_url", length = 500, insertable = false, updatable = false)
+    private String thumbnailSmallUrl;
+
+    @Column(name = "thumbnail_medium_url", length = 500, insertable = false, updatable = false)
+    private String thumbnailMediumUrl;
+
+    @Column(name = "thumbnail_large_url", length = 500, insertable = false, updatable = false)
+    private String thumbnailLargeUrl;
+
     // 🔹 Enumeración para tipos de archivo
     public enum FileType {
         POSTER("Póster", new String[]{"image/jpeg", "image/png"}, 2 * 1024 * 1024L),
@@ -199,6 +217,42 @@ public class MediaFile implements Serializable {
         this.isActive = isActive;
     }
 
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = contentSha256;
+    }
+
+    public String getThumbnailSmallUrl() {
+        return thumbnailSmallUrl;
+    }
+
+    public void setThumbnailSmallUrl(String thumbnailSmallUrl) {
+        this.thumbnailSmallUrl = thumbnailSmallUrl;
+    }
+
+    public String getThumbnailMediumUrl() {
+        return thumbnailMediumUrl;
+    }
+
+    public void setThumbnailMediumUrl(String thumbnailMediumUrl) {
+        this.thumbnailMediumUrl = thumbnailMediumUrl;
+    }
+
+    public String getThumbnailLargeUrl() {
+        return thumbnailLargeUrl;
+    }
+
+    public void setThumbnailLargeUrl(String thumbnailLargeUrl) {
+        this.thumbnailLargeUrl = thumbnailLargeUrl;
+    }
+
+    public boolean hasThumbnails() {
+        return thumbnailSmallUrl != null;
+    }
+
     // 🔹 Métodos utilitarios
     public String getSizeFormatted() {
         if (sizeBytes == null) return "N/A";
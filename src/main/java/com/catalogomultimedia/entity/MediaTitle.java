@@ -3,6 +3,8 @@ package com.catalogomultimedia.entity;
 import com.catalogomultimedia.enums.TitleType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,12 +14,24 @@ import java.util.Set;
 
 @Entity
 @Table(name = "media_titles")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = "MediaTitle.listRow",
+                attributeNodes = @NamedAttributeNode("genres")),
+        @NamedEntityGraph(name = "MediaTitle.detail",
+                attributeNodes = {@NamedAttributeNode("genres"), @NamedAttributeNode("mediaFiles")}),
+        @NamedEntityGraph(name = "MediaTitle.edit",
+                attributeNodes = @NamedAttributeNode("genres"))
+})
 public class MediaTitle implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia con optimizador pooled: Hibernate reserva bloques de 50 ids y puede agrupar los INSERT
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "media_titles_seq")
+    @SequenceGenerator(name = "media_titles_seq", sequenceName = "media_titles_seq", allocationSize = 50)
     @Column(name = "media_title_id")
     private Long id;
 
@@ -49,7 +63,13 @@ public class MediaTitle implements Serializable {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    // Miniatura del póster activo para la tabla del catálogo (sin cargar mediaFiles).
+    // Solo la escribe PosterThumbnailService: el merge al editar un título no la pisa
+    @Column(name = "poster_thumbnail_url", length = 500, insertable = false, updatable = false)
+    private String posterThumbnailUrl;
+
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "media_title_genres",
             joinColumns = @JoinColumn(name = "media_title_id"),
@@ -60,6 +80,9 @@ public class MediaTitle implements Serializable {
     @OneToMany(mappedBy = "mediaTitle", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<MediaFile> mediaFiles = new ArrayList<>();
 
+    // Calculado en la consulta de la página del catálogo para no inicializar mediaFiles
+    @Transient
+    private Boolean posterFlag;
 
     // 🔹 Constructores
     public MediaTitle() {
@@ -134,6 +157,14 @@ public class MediaTitle implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public String getPosterThumbnailUrl() {
+        return posterThumbnailUrl;
+    }
+
+    public void setPosterThumbnailUrl(String posterThumbnailUrl) {
+        this.posterThumbnailUrl = posterThumbnailUrl;
+    }
+
     public Set<MovieGenre> getGenres() {
         return genres;
     }
@@ -162,14 +193,23 @@ public class MediaTitle implements Serializable {
     public void addMediaFile(MediaFile mediaFile) {
         this.mediaFiles.add(mediaFile);
         mediaFile.setMediaTitle(this);
+        this.posterFlag = null;
     }
 
     public void removeMediaFile(MediaFile mediaFile) {
         this.mediaFiles.remove(mediaFile);
         mediaFile.setMediaTitle(null);
+        this.posterFlag = null;
+    }
+
+    public void setPosterFlag(Boolean posterFlag) {
+        this.posterFlag = posterFlag;
     }
 
     public boolean hasPoster() {
+        if (posterFlag != null) {
+            return posterFlag;
+        }
         return mediaFiles.stream()
                 .anyMatch(file -> file.getFileType() == MediaFile.FileType.POSTER
                         && Boolean.TRUE.equals(file.getIsActive()));
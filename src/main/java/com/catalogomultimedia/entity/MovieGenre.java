@@ -2,18 +2,23 @@ package com.catalogomultimedia.entity;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "movie_genres")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class MovieGenre implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_genres_seq")
+    @SequenceGenerator(name = "movie_genres_seq", sequenceName = "movie_genres_seq", allocationSize = 50)
     @Column(name = "movie_genre_id")
     private Long id;
 
@@ -60,6 +65,7 @@ public class MovieGenre implements Serializable {
     }
 
     // 🔹 Métodos utilitarios
+    // Inicializa mediaTitles: para listados usar MovieGenreService.listWithTitleCounts()
     public int getTitleCount() {
         return mediaTitles != null ? mediaTitles.size() : 0;
     }
@@ -86,7 +92,6 @@ public class MovieGenre implements Serializable {
         final StringBuilder sb = new StringBuilder("MovieGenre{");
         sb.append("id=").append(id);
         sb.append(", genreName='").append(genreName).append('\'');
-        sb.append(", titleCount=").append(getTitleCount());
         sb.append('}');
         return sb.toString();
     }
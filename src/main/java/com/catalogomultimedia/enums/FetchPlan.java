@@ -0,0 +1,24 @@
+package com.catalogomultimedia.enums;
+
+/**
+ * Planes de carga de MediaTitle (entity graphs declarados en la entidad):
+ * cada pantalla carga exactamente lo que pinta.
+ */
+public enum FetchPlan {
+    // Fila del catálogo: géneros (el póster se resuelve como bandera en la consulta de la página)
+    LIST_ROW("MediaTitle.listRow"),
+    // Detalle: géneros y archivos
+    DETAIL("MediaTitle.detail"),
+    // Diálogo de edición: géneros
+    EDIT("MediaTitle.edit");
+
+    private final String graphName;
+
+    FetchPlan(String graphName) {
+        this.graphName = graphName;
+    }
+
+    public String getGraphName() {
+        return graphName;
+    }
+}
@@ -0,0 +1,68 @@
+package com.catalogomultimedia.health;
+
+import com.catalogomultimedia.service.BlobDiskCache;
+import com.catalogomultimedia.service.SignedUrlService;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@WebServlet("/_health/cache")
+public class CacheStatsServlet extends HttpServlet {
+    @Inject
+    EntityManagerFactory emf;
+
+    @Inject
+    SignedUrlService signedUrlService;
+
+    @Inject
+    BlobDiskCache diskCache;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; charset=UTF-8");
+        try (PrintWriter out = resp.getWriter()) {
+            out.println("URLs firmadas hits=" + signedUrlService.getHitCount()
+                    + " misses=" + signedUrlService.getMissCount()
+                    + " enMemoria=" + signedUrlService.size());
+            out.println("Caché en disco hits=" + diskCache.getHitCount()
+                    + " misses=" + diskCache.getMissCount()
+                    + " compartidas=" + diskCache.getCoalescedCount()
+                    + " expulsiones=" + diskCache.getEvictionCount()
+                    + " entradas=" + diskCache.size()
+                    + " bytes=" + diskCache.getTotalBytes());
+
+            Statistics st = emf.unwrap(SessionFactory.class).getStatistics();
+            if (!st.isStatisticsEnabled()) {
+                out.println("Estadísticas deshabilitadas (HIBERNATE_STATISTICS=false)");
+                return;
+            }
+            out.println("L2 hits=" + st.getSecondLevelCacheHitCount()
+                    + " misses=" + st.getSecondLevelCacheMissCount()
+                    + " puts=" + st.getSecondLevelCachePutCount());
+            out.println("Query cache hits=" + st.getQueryCacheHitCount()
+                    + " misses=" + st.getQueryCacheMissCount()
+                    + " puts=" + st.getQueryCachePutCount());
+
+            for (String region : st.getSecondLevelCacheRegionNames()) {
+                CacheRegionStatistics rs = st.getDomainDataRegionStatistics(region);
+                if (rs == null) continue;
+                out.println(region
+                        + " hits=" + rs.getHitCount()
+                        + " misses=" + rs.getMissCount()
+                        + " puts=" + rs.getPutCount()
+                        + " enMemoria=" + rs.getElementCountInMemory());
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace(resp.getWriter());
+        }
+    }
+}
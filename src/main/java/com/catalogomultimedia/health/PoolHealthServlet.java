@@ -0,0 +1,70 @@
+package com.catalogomultimedia.health;
+
+import com.catalogomultimedia.config.PoolMetrics;
+import com.catalogomultimedia.config.RoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@WebServlet("/_health/pool")
+public class PoolHealthServlet extends HttpServlet {
+    @Inject
+    HikariDataSource dataSource;
+
+    @Inject
+    PoolMetrics poolMetrics;
+
+    @Inject
+    RoutingDataSource routingDataSource;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; charset=UTF-8");
+        try (PrintWriter out = resp.getWriter()) {
+            printPool(out, dataSource, poolMetrics);
+
+            if (!routingDataSource.isReplicaConfigured()) {
+                out.println("Réplica no configurada");
+                return;
+            }
+            out.println();
+            printPool(out, routingDataSource.getReplica(), routingDataSource.getReplicaMetrics());
+            out.println("Réplica " + (routingDataSource.isReplicaHealthy() ? "habilitada" : "deshabilitada")
+                    + " retraso=" + routingDataSource.getLastLagMillis() + " ms"
+                    + " máx=" + routingDataSource.getMaxLagMillis() + " ms"
+                    + " desconexiones=" + routingDataSource.getLagTripCount());
+            out.println("Conexiones primario=" + routingDataSource.getPrimaryConnections()
+                    + " réplica=" + routingDataSource.getReplicaConnections()
+                    + " lecturasAlPrimario=" + routingDataSource.getFallbackCount());
+        } catch (Exception ex) {
+            ex.printStackTrace(resp.getWriter());
+        }
+    }
+
+    private static void printPool(PrintWriter out, HikariDataSource dataSource, PoolMetrics poolMetrics) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            out.println("Pool " + dataSource.getPoolName() + " sin iniciar");
+            return;
+        }
+        out.println("Pool " + dataSource.getPoolName()
+                + " activas=" + pool.getActiveConnections()
+                + " libres=" + pool.getIdleConnections()
+                + " total=" + pool.getTotalConnections()
+                + " esperando=" + pool.getThreadsAwaitingConnection()
+                + " máx=" + dataSource.getMaximumPoolSize());
+        out.println(String.format("Obtención n=%d media=%.2f ms máx=%.2f ms timeouts=%d",
+                poolMetrics.getAcquireCount(), poolMetrics.getAverageAcquireMillis(),
+                poolMetrics.getMaxAcquireMillis(), poolMetrics.getTimeoutCount()));
+        out.println("Histograma " + poolMetrics.getAcquireHistogram());
+        out.println(String.format("Uso medio=%.1f ms conexionesCreadas=%d",
+                poolMetrics.getAverageUsageMillis(), poolMetrics.getCreatedCount()));
+    }
+}
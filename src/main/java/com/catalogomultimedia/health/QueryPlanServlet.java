@@ -0,0 +1,88 @@
+package com.catalogomultimedia.health;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * EXPLAIN de las consultas frecuentes del catálogo y del dashboard, comprobando que usan el índice
+ * creado para ellas en las migraciones. Es el plan real de esta BD (en tablas pequeñas el planificador
+ * prefiere el recorrido secuencial); la comprobación con datos representativos está en QueryPlanIT.
+ */
+@WebServlet("/_health/plans")
+public class QueryPlanServlet extends HttpServlet {
+
+    // { nombre, índice esperado, consulta }
+    static final String[][] CHECKS = {
+            {"catálogo (orden por defecto)", "idx_media_titles_created_at_id",
+                    "SELECT media_title_id FROM media_titles " +
+                            "ORDER BY created_at DESC, media_title_id DESC LIMIT 20"},
+            {"catálogo por tipo", "idx_media_titles_type_created_at_id",
+                    "SELECT media_title_id FROM media_titles WHERE title_type = 'MOVIE' " +
+                            "ORDER BY created_at DESC, media_title_id DESC LIMIT 20"},
+            {"altas del último mes", "idx_media_titles_created_at_id",
+                    "SELECT COUNT(*) FROM media_titles WHERE created_at >= now() - interval '1 month'"},
+            {"título con póster activo", "idx_media_files_active_title_type",
+                    "SELECT EXISTS (SELECT 1 FROM media_files WHERE media_title_id = 1 " +
+                            "AND file_type = 'POSTER' AND is_active)"},
+            {"archivos activos (dashboard)", "idx_media_files_active_title_type",
+                    "SELECT COUNT(DISTINCT media_title_id) FILTER (WHERE file_type = 'POSTER'), " +
+                            "COALESCE(SUM(size_bytes), 0) FROM media_files WHERE is_active = true"},
+            {"títulos de un género", "idx_media_title_genres_genre",
+                    "SELECT media_title_id FROM media_title_genres WHERE movie_genre_id = 1"}
+    };
+
+    @Inject
+    HikariDataSource dataSource;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; charset=UTF-8");
+        try (PrintWriter out = resp.getWriter();
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement st = connection.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SELECT MAX(version) FROM schema_version")) {
+                    rs.next();
+                    out.println("Esquema en versión " + rs.getInt(1));
+                }
+
+                int missing = 0;
+                for (String[] check : CHECKS) {
+                    String plan = explain(st, check[2]);
+                    boolean ok = plan.contains(check[1]);
+                    if (!ok) missing++;
+                    out.println();
+                    out.println((ok ? "OK    " : "AVISO ") + check[0] + " → " + check[1]);
+                    out.print(plan);
+                }
+                out.println();
+                out.println(missing == 0 ? "Todas las consultas usan su índice" : missing + " consultas sin el índice esperado");
+            } finally {
+                connection.rollback();
+            }
+        } catch (SQLException ex) {
+            ex.printStackTrace(resp.getWriter());
+        }
+    }
+
+    static String explain(Statement st, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = st.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append("    ").append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,50 @@
+package com.catalogomultimedia.health;
+
+import com.catalogomultimedia.dtos.ReconcileReportDTO;
+import com.catalogomultimedia.service.BlobOrphanReconciler;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * GET: métricas del reconciliador de blobs huérfanos. POST: lanza una pasada en segundo plano.
+ */
+@WebServlet("/_health/reconciler")
+public class ReconcilerServlet extends HttpServlet {
+    @Inject
+    BlobOrphanReconciler reconciler;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; charset=UTF-8");
+        try (PrintWriter out = resp.getWriter()) {
+            out.println("modo=" + reconciler.getMode()
+                    + " enCurso=" + reconciler.isRunning()
+                    + " pasadas=" + reconciler.getRunCount());
+            out.println("huérfanos=" + reconciler.getOrphansFound()
+                    + " cuarentena=" + reconciler.getQuarantinedCount()
+                    + " eliminados=" + reconciler.getDeletedCount()
+                    + " bytesLiberados=" + reconciler.getBytesReclaimed()
+                    + " errores=" + reconciler.getErrorCount());
+
+            ReconcileReportDTO last = reconciler.getLastReport();
+            out.println("Última pasada: " + (last != null ? last : "ninguna"));
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if (!reconciler.runAsync()) {
+            resp.sendError(HttpServletResponse.SC_CONFLICT, "Ya hay una pasada en curso");
+            return;
+        }
+        resp.setStatus(HttpServletResponse.SC_ACCEPTED);
+        resp.setContentType("text/plain; charset=UTF-8");
+        resp.getWriter().println("Pasada lanzada en modo " + reconciler.getMode());
+    }
+}
@@ -0,0 +1,25 @@
+package com.catalogomultimedia.health;
+
+import com.catalogomultimedia.config.StartupTimings;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+@WebServlet("/_health/startup")
+public class StartupServlet extends HttpServlet {
+    @Inject
+    StartupTimings startupTimings;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain; charset=UTF-8");
+        try (PrintWriter out = resp.getWriter()) {
+            out.println(startupTimings.report());
+        }
+    }
+}
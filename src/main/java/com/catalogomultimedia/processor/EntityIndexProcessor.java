@@ -0,0 +1,101 @@
+package com.catalogomultimedia.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Genera al compilar la lista de clases @Entity (META-INF/entity-index.txt, una por línea) que JpaProducer
+ * pasa a Hibernate, en lugar de escanear el classpath en cada arranque.
+ *
+ * Se compila aparte en la ejecución compile-processor del pom, antes de la compilación normal que lo usa.
+ */
+@SupportedAnnotationTypes("jakarta.persistence.Entity")
+public class EntityIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_RESOURCE = "META-INF/entity-index.txt";
+    private static final String ENTITY_ANNOTATION = "jakarta.persistence.Entity";
+
+    private final Set<String> entities = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            mergePreviousIndex();
+            writeIndex();
+            return false;
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element instanceof TypeElement type) {
+                    entities.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+                }
+            }
+        }
+        return false;
+    }
+
+    // En una compilación incremental solo se procesan las fuentes cambiadas: se conservan las entidades
+    // del índice anterior que sigan existiendo y sigan siendo @Entity
+    private void mergePreviousIndex() {
+        try {
+            FileObject previous = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (BufferedReader reader = new BufferedReader(previous.openReader(true))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String name = line.trim();
+                    if (!name.isEmpty() && isEntity(name)) {
+                        entities.add(name);
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Primera compilación: no hay índice anterior
+        }
+    }
+
+    private boolean isEntity(String binaryName) {
+        TypeElement type = processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.'));
+        if (type == null) return false;
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().toString().equals(ENTITY_ANNOTATION)) return true;
+        }
+        return false;
+    }
+
+    private void writeIndex() {
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_RESOURCE);
+            try (Writer writer = index.openWriter()) {
+                for (String entity : entities) {
+                    writer.write(entity);
+                    writer.write('\n');
+                }
+            }
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "[EntityIndexProcessor] " + entities.size() + " entidades en " + INDEX_RESOURCE);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "[EntityIndexProcessor] No se pudo escribir " + INDEX_RESOURCE + ": " + e.getMessage());
+        }
+    }
+}
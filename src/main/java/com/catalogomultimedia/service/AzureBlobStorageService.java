@@ -1,38 +1,77 @@
 package com.catalogomultimedia.service;
 
 
-import com.azure.core.http.rest.PagedIterable;
+import com.azure.core.http.rest.PagedResponse;
+import com.azure.core.http.rest.Response;
 import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.BlobServiceClient;
 import com.azure.storage.blob.BlobServiceClientBuilder;
 import com.azure.storage.blob.models.BlobHttpHeaders;
 import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobItemProperties;
+import com.azure.storage.blob.models.BlobListDetails;
 import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlockBlobItem;
+import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
 import com.azure.storage.blob.options.BlockBlobSimpleUploadOptions;
 import com.azure.storage.blob.sas.BlobSasPermission;
 import com.azure.storage.blob.sas.BlobServiceSasSignatureValues;
 import com.azure.storage.blob.specialized.BlockBlobClient;
 import com.azure.storage.common.sas.SasProtocol;
+import com.catalogomultimedia.dtos.BlobPageDTO;
 import com.catalogomultimedia.dtos.MediaFileDTO;
 import com.catalogomultimedia.enums.FileType;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.time.Duration;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @ApplicationScoped
-public class AzureBlobStorageService {
+@Typed(AzureBlobStorageService.class)
+public class AzureBlobStorageService implements StorageBackend {
     private BlobServiceClient blobServiceClient;
     private BlobContainerClient container;
     private static final String CONTAINER_NAME = "catalogos";
 
+    // Blobs por página al listar (máximo del servicio: 5000)
+    private int listPageSize;
+
+    // Subida por bloques: tamaño de bloque, hilos y buffers compartidos (heap constante)
+    private int blockSize;
+    private ExecutorService uploadExecutor;
+    private BlockingQueue<byte[]> bufferPool;
+
+    // Métricas de subida
+    private final AtomicLong uploadCount = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong uploadNanos = new AtomicLong();
+
     public AzureBlobStorageService() {
 
     }
@@ -49,6 +88,29 @@ public class AzureBlobStorageService {
 
         container = blobServiceClient.getBlobContainerClient(CONTAINER_NAME);
         if (!container.exists()) container.create();
+
+        listPageSize = Integer.parseInt(System.getProperty("AZURE_LIST_PAGE_SIZE", "1000"));
+        blockSize = Integer.parseInt(System.getProperty("AZURE_UPLOAD_BLOCK_SIZE_KB", "1024")) * 1024;
+        int parallelism = Integer.parseInt(System.getProperty("AZURE_UPLOAD_PARALLELISM", "4"));
+        int buffers = Integer.parseInt(System.getProperty("AZURE_UPLOAD_BUFFERS", String.valueOf(parallelism * 2)));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        uploadExecutor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "blob-upload-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        bufferPool = new ArrayBlockingQueue<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            bufferPool.add(new byte[blockSize]);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (uploadExecutor != null) {
+            uploadExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -64,72 +126,63 @@ public class AzureBlobStorageService {
      * Sube un archivo al contenedor según la estructura:
      * posters/{title_name}/{timestamp}.jpg o fichas/{title_name}/{timestamp}.pdf
      */
+    @Override
     public MediaFileDTO uploadCatalogFile(FileType fileType,
                                           String titleName,
                                           String originalFileName,
                                           String contentType,
                                           InputStream data,
                                           long sizeBytes,
-                                          String uploadedBy,
-                                          Duration sasTtl,
-                                          boolean openInline) {
-
-
-        String safeTitle = slug(titleName);
-        String ext = guessExtension(originalFileName, contentType, fileType);
-
-        // Fallback de content-type si viene vacío
-        if (contentType == null || contentType.isBlank() || "application/octet-stream".equalsIgnoreCase(contentType)) {
-            contentType = switch (ext.toLowerCase(Locale.ROOT)) {
-                case "png" -> "image/png";
-                case "jpg", "jpeg" -> "image/jpeg";
-                case "pdf" -> "application/pdf";
-                default -> "application/octet-stream";
-            };
-        }
+                                          String uploadedBy) {
 
-        String blobPath = buildPath(fileType, safeTitle, ext);
-        BlockBlobClient blob = container.getBlobClient(blobPath).getBlockBlobClient();
+        String safeTitle = CatalogBlobNames.slug(titleName);
+        String ext = CatalogBlobNames.guessExtension(originalFileName, contentType, fileType);
+        contentType = CatalogBlobNames.resolveContentType(contentType, ext);
 
-        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(contentType);
+        String blobPath = CatalogBlobNames.buildPath(fileType, safeTitle, ext);
 
         Map<String, String> metadata = new HashMap<>();
         metadata.put("uploadedBy", uploadedBy != null ? uploadedBy : "unknown");
         metadata.put("fileType", fileType.name());
         metadata.put("titleName", safeTitle);
 
+        return putBlob(blobPath, contentType, data, sizeBytes, metadata);
+    }
 
-        blob.uploadWithResponse(
-                new BlockBlobSimpleUploadOptions(BinaryData.fromStream(data, sizeBytes))
-                        .setHeaders(headers)
-                        .setMetadata(metadata),
-                null, null
-        );
-
-        BlobProperties props = blob.getProperties();
-
-
-        OffsetDateTime expiryTime = OffsetDateTime.now().plusDays(365);
-
-        BlobSasPermission sasPermission = new BlobSasPermission()
-                .setReadPermission(true);
-
-        BlobServiceSasSignatureValues sasSignatureValues = new BlobServiceSasSignatureValues(expiryTime, sasPermission)
-                .setStartTime(OffsetDateTime.now().minusMinutes(5));
+    /**
+     * Sube un archivo con nombre fijo (derivados como las miniaturas)
+     */
+    @Override
+    public MediaFileDTO putBlob(String blobPath,
+                                String contentType,
+                                InputStream data,
+                                long sizeBytes,
+                                Map<String, String> metadata) {
+        BlockBlobClient blob = container.getBlobClient(blobPath).getBlockBlobClient();
+        BlobHttpHeaders headers = new BlobHttpHeaders().setContentType(contentType);
 
-        String BlobSasUrl = this.buildBlobSasUrl(blob, Duration.ofDays(365), true, blob.getBlobName(), contentType);
+        long start = System.nanoTime();
+        UploadResult result;
+        try {
+            result = (sizeBytes > 0 && sizeBytes <= blockSize)
+                    ? uploadSingleShot(blob, data, sizeBytes, headers, metadata)
+                    : uploadInBlocks(blob, data, headers, metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al subir " + blobPath, e);
+        }
+        recordUpload(blobPath, result, System.nanoTime() - start);
 
-        // DTO
+        // DTO: solo la URL sin firma; las firmas se emiten al mostrar (SignedUrlService)
         MediaFileDTO dto = new MediaFileDTO();
         dto.setBlobName(blobPath);
+        dto.setBlobUrl(blob.getBlobUrl());
         dto.setPublicUrl(blob.getBlobUrl());
-        dto.setSignedUrl(BlobSasUrl);
-        dto.setEtag(props.getETag());
-        dto.setContentType(props.getContentType());
-        dto.setSizeBytes(props.getBlobSize());
-        dto.setFileType(fileType);
+        dto.setEtag(result.etag);
+        dto.setContentType(contentType);
+        dto.setSizeBytes(result.sizeBytes);
+        dto.setFileType(CatalogBlobNames.fileTypeFromMetaOr(CatalogBlobNames.inferTypeByPath(blobPath), metadata));
         dto.setUploadedAt(OffsetDateTime.now(ZoneOffset.UTC));
-        dto.setUploadedBy(uploadedBy);
+        dto.setUploadedBy(getMeta(metadata, "uploadedBy"));
 
         return dto;
     }
@@ -137,6 +190,7 @@ public class AzureBlobStorageService {
     /**
      * Obtiene un blob por su nombre
      */
+    @Override
     public Optional<MediaFileDTO> getBlob(String blobName) {
         BlockBlobClient blob = container.getBlobClient(blobName).getBlockBlobClient();
         if (!blob.exists()) return Optional.empty();
@@ -150,47 +204,44 @@ public class AzureBlobStorageService {
         dto.setSizeBytes(props.getBlobSize());
         dto.setUploadedAt(props.getLastModified());
         dto.setUploadedBy(getMeta(props.getMetadata(), "uploadedBy"));
-        dto.setFileType(fileTypeFromMetaOr(inferTypeByPath(blobName), props.getMetadata()));
+        dto.setFileType(CatalogBlobNames.fileTypeFromMetaOr(CatalogBlobNames.inferTypeByPath(blobName), props.getMetadata()));
 
         return Optional.of(dto);
     }
 
     /**
-     * Lista todos los blobs o por prefijo
+     * Recorre los blobs (todos o por prefijo) página a página: los metadatos vienen en el propio
+     * listado y cada página se pide solo cuando el stream la necesita
      */
-    public List<MediaFileDTO> listBlobs(String prefix) {
-        List<MediaFileDTO> result = new ArrayList<>();
-        PagedIterable<BlobItem> items = (prefix == null || prefix.isEmpty())
-                ? container.listBlobs()
-                : container.listBlobsByHierarchy("/");
-
-        for (BlobItem item : items) {
-            String name = item.getName();
-            BlockBlobClient blob = container.getBlobClient(name).getBlockBlobClient();
-            BlobProperties props = safe(() -> blob.getProperties(), null);
-            if (props == null) continue;
-
-            MediaFileDTO dto = new MediaFileDTO();
-            dto.setBlobUrl(blob.getBlobUrl());
-            dto.setBlobName(name);
-            dto.setEtag(props.getETag());
-            dto.setContentType(props.getContentType());
-            dto.setSizeBytes(props.getBlobSize());
-            dto.setUploadedAt(props.getLastModified());
-            dto.setUploadedBy(getMeta(props.getMetadata(), "uploadedBy"));
-            dto.setFileType(fileTypeFromMetaOr(inferTypeByPath(name), props.getMetadata()));
-            result.add(dto);
-        }
-        return result;
+    @Override
+    public Stream<MediaFileDTO> streamBlobs(String prefix) {
+        return container.listBlobs(listOptions(prefix, listPageSize), null)
+                .stream()
+                .map(this::toDto);
     }
 
-    public List<MediaFileDTO> listAllBlobs() {
-        return listBlobs(null);
+    /**
+     * Una página del listado; con el token devuelto se pide la siguiente
+     */
+    @Override
+    public BlobPageDTO listBlobsPage(String prefix, String continuationToken, int pageSize) {
+        PagedResponse<BlobItem> page = container
+                .listBlobs(listOptions(prefix, pageSize), continuationToken, null)
+                .iterableByPage()
+                .iterator()
+                .next();
+
+        List<MediaFileDTO> items = new ArrayList<>(page.getValue().size());
+        for (BlobItem item : page.getValue()) {
+            items.add(toDto(item));
+        }
+        return new BlobPageDTO(items, page.getContinuationToken());
     }
 
     /**
      * Elimina físicamente un blob
      */
+    @Override
     public boolean deleteBlob(String blobName) {
         BlockBlobClient blob = container.getBlobClient(blobName).getBlockBlobClient();
         if (!blob.exists()) return false;
@@ -199,85 +250,276 @@ public class AzureBlobStorageService {
     }
 
     /**
-     * Genera una URL SAS de lectura temporal
+     * Genera una URL SAS de lectura que caduca en expiresAt
      */
-    public String generateBlobReadSasUrl(String blobName, Duration ttl) {
+    @Override
+    public String generateReadUrl(String blobName, OffsetDateTime expiresAt, boolean inline) {
         BlobClient blobClient = container.getBlobClient(blobName);
-        return this.buildBlobSasUrl(blobClient.getBlockBlobClient(), ttl, true, blobClient.getBlobName(), null);
+        return this.buildBlobSasUrl(blobClient.getBlockBlobClient(), expiresAt, inline, fileNameOf(blobName));
     }
 
-    /* -------------------- Helpers -------------------- */
+    @Override
+    public String blobNameFromUrl(String url) {
+        if (url == null) return null;
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        String containerUrl = container.getBlobContainerUrl() + "/";
+        if (path.startsWith(containerUrl)) {
+            return URLDecoder.decode(path.substring(containerUrl.length()), StandardCharsets.UTF_8);
+        }
+        int marker = path.indexOf("/" + CONTAINER_NAME + "/");
+        return marker < 0 ? path : URLDecoder.decode(path.substring(marker + CONTAINER_NAME.length() + 2), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream openStream(String blobName) {
+        return container.getBlobClient(blobName).openInputStream();
+    }
+
+    @Override
+    public void download(String blobName, long offset, long length, OutputStream out) {
+        BlobRange range = new BlobRange(offset, length < 0 ? null : length);
+        container.getBlobClient(blobName)
+                .downloadStreamWithResponse(out, range, null, null, false, null, Context.NONE);
+    }
+
+    public long getUploadCount() {
+        return uploadCount.get();
+    }
+
+    public long getUploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    // MB/s acumulado de todas las subidas
+    public double getAverageThroughputMBps() {
+        long nanos = uploadNanos.get();
+        return nanos == 0 ? 0.0 : (uploadedBytes.get() / (1024.0 * 1024.0)) / (nanos / 1_000_000_000.0);
+    }
+
+    /* -------------------- Subida -------------------- */
+
+    /**
+     * Archivos de un solo bloque: una petición; ETag y tamaño salen de la respuesta
+     */
+    private UploadResult uploadSingleShot(BlockBlobClient blob,
+                                          InputStream data,
+                                          long sizeBytes,
+                                          BlobHttpHeaders headers,
+                                          Map<String, String> metadata) {
+        Response<BlockBlobItem> response = blob.uploadWithResponse(
+                new BlockBlobSimpleUploadOptions(BinaryData.fromStream(data, sizeBytes))
+                        .setHeaders(headers)
+                        .setMetadata(metadata),
+                null, Context.NONE
+        );
+        return new UploadResult(response.getValue().getETag(), sizeBytes, 1);
+    }
+
+    /**
+     * Lee el stream en bloques de blockSize tomados del pool y los sube en paralelo con stageBlock;
+     * al final confirma la lista con commitBlockList. El heap usado no depende del tamaño del archivo.
+     */
+    private UploadResult uploadInBlocks(BlockBlobClient blob,
+                                        InputStream data,
+                                        BlobHttpHeaders headers,
+                                        Map<String, String> metadata) throws IOException {
+        List<String> blockIds = new ArrayList<>();
+        List<PooledBlock> blocks = new ArrayList<>();
+        long total = 0;
+        boolean staged = false;
 
-    private static <T> T safe(Supplier<T> sup, T def) {
         try {
-            return sup.get();
-        } catch (Exception e) {
-            return def;
+            while (true) {
+                byte[] buffer = bufferPool.take();
+                int length;
+                try {
+                    length = readFully(data, buffer);
+                } catch (IOException | RuntimeException e) {
+                    bufferPool.add(buffer);
+                    throw e;
+                }
+                if (length == 0) {
+                    bufferPool.add(buffer);
+                    break;
+                }
+
+                String blockId = blockId(blockIds.size());
+                blockIds.add(blockId);
+                total += length;
+
+                PooledBlock block = new PooledBlock(buffer);
+                blocks.add(block);
+                block.future = uploadExecutor.submit(() -> {
+                    if (!block.claim()) return;
+                    try {
+                        blob.stageBlock(blockId, new ByteArrayInputStream(buffer, 0, length), length);
+                    } finally {
+                        block.release();
+                    }
+                });
+
+                if (length < buffer.length) break;
+            }
+            for (PooledBlock block : blocks) {
+                block.future.get();
+            }
+            staged = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Subida interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Error al subir bloque", e.getCause());
+        } finally {
+            if (!staged) {
+                // Los bloques que ya se están subiendo devuelven su buffer al terminar; los que no llegaron
+                // a empezar (cancelados o sin encolar) lo devuelven aquí, o el pool se quedaría sin buffers
+                for (PooledBlock block : blocks) {
+                    if (block.future != null) {
+                        block.future.cancel(true);
+                    }
+                    block.releaseIfUnclaimed();
+                }
+            }
         }
+
+        Response<BlockBlobItem> response = blob.commitBlockListWithResponse(
+                new BlockBlobCommitBlockListOptions(blockIds)
+                        .setHeaders(headers)
+                        .setMetadata(metadata),
+                null, Context.NONE
+        );
+        return new UploadResult(response.getValue().getETag(), total, blockIds.size());
     }
 
-    private static String slug(String text) {
-        if (text == null) return "untitled";
-        return text.trim().toLowerCase(Locale.ROOT)
-                .replaceAll("[^a-z0-9]+", "_")
-                .replaceAll("^_+|_+$", "");
+    private void recordUpload(String blobPath, UploadResult result, long nanos) {
+        uploadCount.incrementAndGet();
+        uploadedBytes.addAndGet(result.sizeBytes);
+        uploadNanos.addAndGet(nanos);
+
+        double mb = result.sizeBytes / (1024.0 * 1024.0);
+        double seconds = nanos / 1_000_000_000.0;
+        System.out.printf("[AzureBlobStorageService] %s: %.2f MB en %d ms (%.2f MB/s, %d bloques)%n",
+                blobPath, mb, nanos / 1_000_000, seconds > 0 ? mb / seconds : 0.0, result.blocks);
     }
 
-    private static String guessExtension(String fileName, String contentType, FileType type) {
-        if (fileName != null && fileName.contains(".")) {
-            return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    /**
+     * Buffer del pool asignado a un bloque: lo devuelve exactamente una vez quien se quede con él,
+     * la tarea de subida (claim) o el lector si la subida se aborta antes de que la tarea empiece
+     */
+    private final class PooledBlock {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int RELEASED = 2;
+
+        private final byte[] buffer;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private Future<?> future;
+
+        PooledBlock(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED);
+        }
+
+        void release() {
+            state.set(RELEASED);
+            bufferPool.add(buffer);
+        }
+
+        void releaseIfUnclaimed() {
+            if (state.compareAndSet(PENDING, RELEASED)) {
+                bufferPool.add(buffer);
+            }
         }
-        if ("application/pdf".equalsIgnoreCase(contentType)) return "pdf";
-        if ("image/png".equalsIgnoreCase(contentType)) return "png";
-        if ("image/jpeg".equalsIgnoreCase(contentType)) return "jpg";
-        return (type == FileType.TECHNICAL_SHEET) ? "pdf" : "jpg";
     }
 
-    private static String buildPath(FileType type, String safeTitle, String ext) {
-        String folder = (type == FileType.POSTER) ? "posters" : "fichas";
-        long ts = System.currentTimeMillis();
-        return String.format("%s/%s/%d.%s", folder, safeTitle, ts, ext);
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int n = in.read(buffer, read, buffer.length - read);
+            if (n < 0) break;
+            read += n;
+        }
+        return read;
     }
 
-    private static String getMeta(Map<String, String> meta, String key) {
-        return (meta != null && meta.containsKey(key)) ? meta.get(key) : null;
+    // Todos los IDs de bloque de un blob deben tener la misma longitud
+    private static String blockId(int index) {
+        return Base64.getEncoder().encodeToString(
+                String.format("block-%08d", index).getBytes(StandardCharsets.UTF_8));
     }
 
-    private static FileType fileTypeFromMetaOr(FileType fallback, Map<String, String> meta) {
-        if (meta != null && meta.containsKey("fileType")) {
-            try {
-                return FileType.valueOf(meta.get("fileType"));
-            } catch (Exception ignored) {
-            }
+    private static final class UploadResult {
+        private final String etag;
+        private final long sizeBytes;
+        private final int blocks;
+
+        private UploadResult(String etag, long sizeBytes, int blocks) {
+            this.etag = etag;
+            this.sizeBytes = sizeBytes;
+            this.blocks = blocks;
         }
-        return fallback;
     }
 
-    private static FileType inferTypeByPath(String blobName) {
-        if (blobName.startsWith("posters/")) return FileType.POSTER;
-        if (blobName.startsWith("fichas/")) return FileType.TECHNICAL_SHEET;
-        return null;
+    /* -------------------- Helpers -------------------- */
+
+    private static ListBlobsOptions listOptions(String prefix, int pageSize) {
+        ListBlobsOptions options = new ListBlobsOptions()
+                .setDetails(new BlobListDetails().setRetrieveMetadata(true))
+                .setMaxResultsPerPage(pageSize);
+        if (prefix != null && !prefix.isEmpty()) {
+            options.setPrefix(prefix);
+        }
+        return options;
     }
 
+    private MediaFileDTO toDto(BlobItem item) {
+        String name = item.getName();
+        BlobItemProperties props = item.getProperties();
+        Map<String, String> metadata = item.getMetadata();
+
+        MediaFileDTO dto = new MediaFileDTO();
+        dto.setBlobUrl(container.getBlobClient(name).getBlobUrl());
+        dto.setBlobName(name);
+        dto.setEtag(props.getETag());
+        dto.setContentType(props.getContentType());
+        dto.setSizeBytes(props.getContentLength());
+        dto.setUploadedAt(props.getLastModified());
+        dto.setUploadedBy(getMeta(metadata, "uploadedBy"));
+        dto.setFileType(CatalogBlobNames.fileTypeFromMetaOr(CatalogBlobNames.inferTypeByPath(name), metadata));
+        return dto;
+    }
+
+    private static <T> T safe(Supplier<T> sup, T def) {
+        try {
+            return sup.get();
+        } catch (Exception e) {
+            return def;
+        }
+    }
+
+    private static String getMeta(Map<String, String> meta, String key) {
+        return (meta != null && meta.containsKey(key)) ? meta.get(key) : null;
+    }
+
+    private static String fileNameOf(String blobName) {
+        return blobName.substring(blobName.lastIndexOf('/') + 1);
+    }
+
+    // Sin hora de inicio: la misma caducidad produce la misma URL (cacheable por el navegador)
     private String buildBlobSasUrl(BlockBlobClient blob,
-                                   Duration ttl,
+                                   OffsetDateTime expires,
                                    boolean openInline,
-                                   String downloadFileName,
-                                   String contentType) {
-
-        OffsetDateTime starts = OffsetDateTime.now().minusMinutes(5);
-        OffsetDateTime expires = OffsetDateTime.now().plus(ttl);
+                                   String downloadFileName) {
 
         BlobSasPermission perm = new BlobSasPermission().setReadPermission(true);
 
         BlobServiceSasSignatureValues sv = new BlobServiceSasSignatureValues(expires, perm)
-                .setStartTime(starts)
                 .setProtocol(SasProtocol.HTTPS_ONLY);
 
-        if (contentType != null && !contentType.isBlank()) {
-            sv.setContentType(contentType);
-        }
-
         if (downloadFileName != null && !downloadFileName.isBlank()) {
             String disp = openInline
                     ? "inline; filename=\"" + downloadFileName + "\""
@@ -0,0 +1,199 @@
+package com.catalogomultimedia.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Caché en disco local de los blobs más pedidos, limitada por tamaño (MEDIA_CACHE_MAX_MB) y con
+ * expulsión LRU. La clave incluye el ETag, así un blob reemplazado nunca se sirve desde la caché.
+ * Varios fallos simultáneos del mismo blob comparten una sola descarga.
+ */
+@ApplicationScoped
+public class BlobDiskCache {
+
+    private Path dir;
+    private long maxBytes;
+    // Blobs mayores no se cachean (ocuparían demasiada parte de la caché)
+    private long maxEntryBytes;
+
+    // Orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @PostConstruct
+    void init() {
+        dir = Paths.get(System.getProperty("MEDIA_CACHE_DIR",
+                Paths.get(System.getProperty("java.io.tmpdir"), "catalogo-media-cache").toString()))
+                .toAbsolutePath().normalize();
+        maxBytes = Long.parseLong(System.getProperty("MEDIA_CACHE_MAX_MB", "512")) * 1024 * 1024;
+        maxEntryBytes = maxBytes / 4;
+
+        try {
+            Files.createDirectories(dir);
+            // El índice vive en memoria: lo que quedó de una ejecución anterior se descarta
+            try (Stream<Path> old = Files.list(dir)) {
+                old.forEach(p -> {
+                    try {
+                        Files.deleteIfExists(p);
+                    } catch (IOException ignored) {
+                    }
+                });
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo preparar MEDIA_CACHE_DIR: " + dir, e);
+        }
+    }
+
+    /**
+     * Devuelve la copia local del blob, descargándola si hace falta.
+     * sizeBytes es el tamaño esperado (si supera el límite por entrada se devuelve null y el
+     * llamador debe servir directamente desde el almacenamiento).
+     */
+    public Path get(String blobName, String etag, long sizeBytes) throws IOException {
+        if (sizeBytes > maxEntryBytes) return null;
+        String key = blobName + "|" + (etag != null ? etag : "");
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && Files.exists(entry.path)) {
+                hits.incrementAndGet();
+                return entry.path;
+            }
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        misses.incrementAndGet();
+        try {
+            Path path = fetch(key, blobName);
+            mine.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /* -------------------- Helpers -------------------- */
+
+    private Path fetch(String key, String blobName) throws IOException {
+        Path target = dir.resolve(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString());
+        Path tmp = Files.createTempFile(dir, ".fetch-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                storageBackend.download(blobName, 0, -1, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        long size = Files.size(target);
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(target, size));
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += size;
+            evictIfNeeded();
+        }
+        return target;
+    }
+
+    // Se llama con el monitor tomado. Borrar un archivo que se está sirviendo es seguro en
+    // sistemas POSIX: la lectura en curso conserva su descriptor.
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.size;
+            evictions.incrementAndGet();
+            try {
+                Files.deleteIfExists(eldest.path);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new UncheckedIOException(new IOException(cause));
+        }
+    }
+
+    private static final class Entry {
+        private final Path path;
+        private final long size;
+
+        private Entry(Path path, long size) {
+            this.path = path;
+            this.size = size;
+        }
+    }
+}
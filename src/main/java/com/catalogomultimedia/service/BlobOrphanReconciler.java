@@ -0,0 +1,442 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.BlobPageDTO;
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.dtos.ReconcileReportDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Busca blobs sin fila en media_files (subidas fallidas, archivos eliminados) y los pone en
+ * cuarentena o los borra. Recorre a la vez el listado del almacenamiento y los nombres referenciados
+ * en la BD, ambos en orden de nombre y por trozos (RECONCILER_CHUNK_SIZE), así la memoria no depende
+ * del número de archivos.
+ *
+ * Por defecto solo informa (RECONCILER_MODE=dry-run). Los blobs más recientes que RECONCILER_GRACE_HOURS
+ * se respetan: pueden ser subidas en curso cuyo MediaFile aún no se ha guardado.
+ */
+@ApplicationScoped
+public class BlobOrphanReconciler {
+
+    public enum Mode {
+        DRY_RUN, QUARANTINE, DELETE
+    }
+
+    // Carpetas de buildPath en orden lexicográfico (las miniaturas viven junto a su póster)
+    private static final List<String> PREFIXES = List.of("fichas/", "posters/");
+    private static final String QUARANTINE_PREFIX = "quarantine/";
+
+    // Siguiente trozo de nombres referenciados: un índice por columna, unidos en orden "C"
+    private static final String REFERENCED_NAMES =
+            "SELECT name FROM (" +
+                    "(SELECT media_blob_name(blob_url) COLLATE \"C\" AS name FROM media_files " +
+                    "WHERE media_blob_name(blob_url) COLLATE \"C\" > ? " +
+                    "ORDER BY 1 LIMIT ?) " +
+                    "UNION ALL " +
+                    "(SELECT media_blob_name(thumbnail_small_url) COLLATE \"C\" FROM media_files " +
+                    "WHERE thumbnail_small_url IS NOT NULL AND media_blob_name(thumbnail_small_url) COLLATE \"C\" > ? " +
+                    "ORDER BY 1 LIMIT ?) " +
+                    "UNION ALL " +
+                    "(SELECT media_blob_name(thumbnail_medium_url) COLLATE \"C\" FROM media_files " +
+                    "WHERE thumbnail_medium_url IS NOT NULL AND media_blob_name(thumbnail_medium_url) COLLATE \"C\" > ? " +
+                    "ORDER BY 1 LIMIT ?) " +
+                    "UNION ALL " +
+                    "(SELECT media_blob_name(thumbnail_large_url) COLLATE \"C\" FROM media_files " +
+                    "WHERE thumbnail_large_url IS NOT NULL AND media_blob_name(thumbnail_large_url) COLLATE \"C\" > ? " +
+                    "ORDER BY 1 LIMIT ?)" +
+                    ") refs ORDER BY name LIMIT ?";
+
+    // También cuenta como referencia un blob que la deduplicación entregó hace menos del periodo de gracia:
+    // su MediaFile puede estar aún por guardar
+    private static final String IS_REFERENCED =
+            "SELECT 1 FROM media_files " +
+                    "WHERE media_blob_name(blob_url) COLLATE \"C\" = ? " +
+                    "OR (thumbnail_small_url IS NOT NULL AND media_blob_name(thumbnail_small_url) COLLATE \"C\" = ?) " +
+                    "OR (thumbnail_medium_url IS NOT NULL AND media_blob_name(thumbnail_medium_url) COLLATE \"C\" = ?) " +
+                    "OR (thumbnail_large_url IS NOT NULL AND media_blob_name(thumbnail_large_url) COLLATE \"C\" = ?) " +
+                    "UNION ALL " +
+                    "SELECT 1 FROM blob_content_hashes WHERE blob_name = ? AND last_reused_at > ? " +
+                    "LIMIT 1";
+
+    private boolean enabled;
+    private Mode mode;
+    private Duration grace;
+    private int chunkSize;
+    private int actionsPerSecond;
+    private int maxActionsPerRun;
+    private long intervalMinutes;
+    private long initialDelayMinutes;
+
+    private ScheduledExecutorService scheduler;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile ReconcileReportDTO lastReport;
+
+    // Acumulados desde el arranque
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong orphansFound = new AtomicLong();
+    private final AtomicLong quarantinedTotal = new AtomicLong();
+    private final AtomicLong deletedTotal = new AtomicLong();
+    private final AtomicLong bytesReclaimedTotal = new AtomicLong();
+    private final AtomicLong errorsTotal = new AtomicLong();
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @PostConstruct
+    void init() {
+        enabled = Boolean.parseBoolean(System.getProperty("RECONCILER_ENABLED", "true"));
+        mode = parseMode(System.getProperty("RECONCILER_MODE", "dry-run"));
+        grace = Duration.ofHours(Long.parseLong(System.getProperty("RECONCILER_GRACE_HOURS", "24")));
+        chunkSize = Integer.parseInt(System.getProperty("RECONCILER_CHUNK_SIZE", "1000"));
+        actionsPerSecond = Integer.parseInt(System.getProperty("RECONCILER_ACTIONS_PER_SECOND", "5"));
+        maxActionsPerRun = Integer.parseInt(System.getProperty("RECONCILER_MAX_ACTIONS", "1000"));
+        intervalMinutes = Long.parseLong(System.getProperty("RECONCILER_INTERVAL_HOURS", "24")) * 60;
+        initialDelayMinutes = Long.parseLong(System.getProperty("RECONCILER_INITIAL_DELAY_MINUTES", "15"));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "blob-reconciler");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        if (!enabled) {
+            System.out.println("[BlobOrphanReconciler] Deshabilitado (RECONCILER_ENABLED=false)");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::runScheduled, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+        System.out.println("[BlobOrphanReconciler] Programado cada " + intervalMinutes + " min en modo " + mode);
+    }
+
+    /**
+     * Lanza una pasada en segundo plano con el modo configurado; false si ya hay una en curso
+     */
+    public boolean runAsync() {
+        if (running.get()) return false;
+        scheduler.execute(this::runScheduled);
+        return true;
+    }
+
+    /**
+     * Ejecuta una pasada en el hilo actual; null si ya hay otra en curso
+     */
+    public ReconcileReportDTO reconcile(Mode runMode) {
+        if (!running.compareAndSet(false, true)) return null;
+        try {
+            ReconcileReportDTO report = new Run(runMode).execute();
+            lastReport = report;
+            runs.incrementAndGet();
+            System.out.println("[BlobOrphanReconciler] " + report);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public ReconcileReportDTO getLastReport() {
+        return lastReport;
+    }
+
+    public long getRunCount() {
+        return runs.get();
+    }
+
+    public long getOrphansFound() {
+        return orphansFound.get();
+    }
+
+    public long getQuarantinedCount() {
+        return quarantinedTotal.get();
+    }
+
+    public long getDeletedCount() {
+        return deletedTotal.get();
+    }
+
+    public long getBytesReclaimed() {
+        return bytesReclaimedTotal.get();
+    }
+
+    public long getErrorCount() {
+        return errorsTotal.get();
+    }
+
+    /* -------------------- Una pasada -------------------- */
+
+    private void runScheduled() {
+        try {
+            reconcile(mode);
+        } catch (Exception e) {
+            errorsTotal.incrementAndGet();
+            System.out.println("[BlobOrphanReconciler] Error en la pasada: " + e.getMessage());
+        }
+    }
+
+    private final class Run {
+        private final Mode runMode;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final OffsetDateTime graceLimit = OffsetDateTime.now().minus(grace);
+        private final long actionIntervalNanos = actionsPerSecond > 0 ? 1_000_000_000L / actionsPerSecond : 0;
+        private long nextActionAt = System.nanoTime();
+
+        private long scanned;
+        private long referenced;
+        private long orphans;
+        private long young;
+        private long quarantined;
+        private long deleted;
+        private long bytes;
+        private long missing;
+        private long errors;
+        private boolean limitReached;
+
+        private Run(Mode runMode) {
+            this.runMode = runMode;
+        }
+
+        ReconcileReportDTO execute() {
+            EntityManager em = emf.createEntityManager();
+            try {
+                ReferencedNames refs = new ReferencedNames(em);
+                String ref = refs.next();
+
+                for (String prefix : PREFIXES) {
+                    String token = null;
+                    BlobPageDTO page;
+                    do {
+                        page = storageBackend.listBlobsPage(prefix, token, chunkSize);
+                        for (MediaFileDTO blob : page.getItems()) {
+                            String name = blob.getBlobName();
+                            scanned++;
+                            // Nombres en la BD sin blob (se cuentan, no se tocan)
+                            while (ref != null && ref.compareTo(name) < 0) {
+                                missing++;
+                                ref = refs.next();
+                            }
+                            if (ref != null && ref.equals(name)) {
+                                referenced++;
+                                ref = refs.next();
+                            } else {
+                                handleOrphan(em, blob);
+                            }
+                        }
+                        token = page.getContinuationToken();
+                    } while (page.hasMore() && !Thread.currentThread().isInterrupted());
+                }
+                while (ref != null) {
+                    missing++;
+                    ref = refs.next();
+                }
+            } finally {
+                em.close();
+            }
+
+            orphansFound.addAndGet(orphans);
+            quarantinedTotal.addAndGet(quarantined);
+            deletedTotal.addAndGet(deleted);
+            bytesReclaimedTotal.addAndGet(bytes);
+            errorsTotal.addAndGet(errors);
+            return new ReconcileReportDTO(runMode.name(), startedAt, (System.nanoTime() - startNanos) / 1_000_000,
+                    scanned, referenced, orphans, young, quarantined, deleted, bytes, missing, errors, limitReached);
+        }
+
+        private void handleOrphan(EntityManager em, MediaFileDTO blob) {
+            if (blob.getUploadedAt() == null || blob.getUploadedAt().isAfter(graceLimit)) {
+                young++;
+                return;
+            }
+            orphans++;
+            if (runMode == Mode.DRY_RUN) return;
+            if (quarantined + deleted >= maxActionsPerRun) {
+                limitReached = true;
+                return;
+            }
+
+            String name = blob.getBlobName();
+            try {
+                throttle();
+                // El listado de la BD puede haber quedado atrás (p. ej. una subida deduplicada que
+                // reutiliza este blob): se confirma justo antes de tocarlo
+                if (isReferenced(em, name, graceLimit)) {
+                    orphans--;
+                    referenced++;
+                    return;
+                }
+                if (runMode == Mode.QUARANTINE) {
+                    quarantine(blob);
+                    quarantined++;
+                    System.out.println("[BlobOrphanReconciler] En cuarentena: " + name);
+                } else {
+                    storageBackend.deleteBlob(name);
+                    deleted++;
+                    System.out.println("[BlobOrphanReconciler] Eliminado: " + name);
+                }
+                bytes += blob.getSizeBytes() != null ? blob.getSizeBytes() : 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                errors++;
+                System.out.println("[BlobOrphanReconciler] Error procesando " + name + ": " + e.getMessage());
+            }
+        }
+
+        // Copia a quarantine/{nombre} y borra el original
+        private void quarantine(MediaFileDTO blob) throws Exception {
+            String name = blob.getBlobName();
+            try (InputStream in = storageBackend.openStream(name)) {
+                storageBackend.putBlob(QUARANTINE_PREFIX + name, blob.getContentType(), in,
+                        blob.getSizeBytes() != null ? blob.getSizeBytes() : -1,
+                        Map.of("originalName", name, "quarantinedAt", OffsetDateTime.now().toString()));
+            }
+            storageBackend.deleteBlob(name);
+        }
+
+        private void throttle() throws InterruptedException {
+            if (actionIntervalNanos <= 0) return;
+            long wait = nextActionAt - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            nextActionAt = Math.max(nextActionAt, System.nanoTime()) + actionIntervalNanos;
+        }
+    }
+
+    /**
+     * Nombres referenciados en media_files en orden "C", sin repetidos, leídos por keyset
+     */
+    private final class ReferencedNames {
+        private final EntityManager em;
+        private List<String> chunk = List.of();
+        private int index;
+        private String last = "";
+        private boolean exhausted;
+
+        private ReferencedNames(EntityManager em) {
+            this.em = em;
+        }
+
+        String next() {
+            while (true) {
+                if (index >= chunk.size()) {
+                    if (exhausted) return null;
+                    chunk = fetch(last);
+                    index = 0;
+                    exhausted = chunk.size() < chunkSize;
+                    if (chunk.isEmpty()) return null;
+                }
+                String name = chunk.get(index++);
+                // Un mismo blob puede estar en varias filas (deduplicación)
+                if (name.equals(last)) continue;
+                last = name;
+                return name;
+            }
+        }
+
+        private List<String> fetch(String after) {
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                List<String> names = em.unwrap(Session.class).doReturningWork(connection -> {
+                    List<String> result = new ArrayList<>(chunkSize);
+                    try (PreparedStatement st = connection.prepareStatement(REFERENCED_NAMES)) {
+                        for (int i = 0; i < 4; i++) {
+                            st.setString(i * 2 + 1, after);
+                            st.setInt(i * 2 + 2, chunkSize);
+                        }
+                        st.setInt(9, chunkSize);
+                        try (ResultSet rs = st.executeQuery()) {
+                            while (rs.next()) {
+                                result.add(rs.getString(1));
+                            }
+                        }
+                    }
+                    return result;
+                });
+                tx.commit();
+                return names;
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                throw e;
+            }
+        }
+    }
+
+    private boolean isReferenced(EntityManager em, String name, OffsetDateTime reusedSince) {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            boolean found = em.unwrap(Session.class).doReturningWork(connection -> {
+                try (PreparedStatement st = connection.prepareStatement(IS_REFERENCED)) {
+                    for (int i = 1; i <= 5; i++) {
+                        st.setString(i, name);
+                    }
+                    st.setTimestamp(6, Timestamp.valueOf(reusedSince.toLocalDateTime()));
+                    try (ResultSet rs = st.executeQuery()) {
+                        return rs.next();
+                    }
+                }
+            });
+            tx.commit();
+            return found;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        }
+    }
+
+    private static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            System.out.println("[BlobOrphanReconciler] RECONCILER_MODE no válido (" + value + "), se usa dry-run");
+            return Mode.DRY_RUN;
+        }
+    }
+}
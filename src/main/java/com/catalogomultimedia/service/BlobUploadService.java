@@ -0,0 +1,194 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.enums.FileType;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Sube archivos al StorageBackend en hilos virtuales para no retener los hilos del servidor
+ * durante la E/S del almacenamiento. El archivo llega ya copiado a un temporal local.
+ */
+@ApplicationScoped
+public class BlobUploadService {
+
+    // Trabajos terminados que nadie recogió se descartan pasado este tiempo
+    private static final long JOB_RETENTION_MS = Duration.ofMinutes(30).toMillis();
+    // Cada cuántos puntos porcentuales se notifica el progreso
+    private static final int PROGRESS_STEP = 5;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, UploadJob> jobs = new ConcurrentHashMap<>();
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @Inject
+    private ContentHashService contentHashService;
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Encola la subida y devuelve el trabajo sin esperar; el listener recibe el progreso y el final.
+     * El archivo temporal se borra al terminar. Con contentSha256 (ver ContentHashService.copyAndHash)
+     * un contenido ya subido reutiliza su blob sin volver a enviarlo.
+     */
+    public UploadJob submit(Long mediaTitleId,
+                            FileType fileType,
+                            String titleName,
+                            String fileName,
+                            String contentType,
+                            Path tempFile,
+                            long sizeBytes,
+                            String uploadedBy,
+                            String contentSha256,
+                            Consumer<UploadJob> listener) {
+        evictExpired();
+
+        UploadJob job = new UploadJob(mediaTitleId, fileType, fileName, sizeBytes, contentSha256);
+        jobs.put(job.getJobId(), job);
+
+        executor.submit(() -> run(job, titleName, contentType, tempFile, uploadedBy, listener));
+        return job;
+    }
+
+    public UploadJob find(String jobId) {
+        return jobId == null ? null : jobs.get(jobId);
+    }
+
+    /**
+     * Retira un trabajo terminado del registro (lo recoge el bean al persistir el MediaFile)
+     */
+    public UploadJob take(String jobId) {
+        if (jobId == null) return null;
+        UploadJob job = jobs.get(jobId);
+        if (job == null || !job.isFinished()) return null;
+        return jobs.remove(jobId);
+    }
+
+    private void run(UploadJob job,
+                     String titleName,
+                     String contentType,
+                     Path tempFile,
+                     String uploadedBy,
+                     Consumer<UploadJob> listener) {
+        job.setStatus(UploadJob.Status.UPLOADING);
+        notify(listener, job);
+
+        try {
+            Optional<MediaFileDTO> existing = contentHashService.findDuplicate(job.getContentSha256(), job.getFileType());
+            if (existing.isPresent()) {
+                job.setResult(existing.get());
+                job.setDeduplicated(true);
+                job.setStatus(UploadJob.Status.DONE);
+            } else {
+                upload(job, titleName, contentType, tempFile, uploadedBy, listener);
+            }
+        } catch (Exception e) {
+            job.setError(e.getMessage());
+            job.setStatus(UploadJob.Status.FAILED);
+            System.out.println("[BlobUploadService] Error subiendo " + job.getFileName() + ": " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+            }
+        }
+        notify(listener, job);
+    }
+
+    private void upload(UploadJob job,
+                        String titleName,
+                        String contentType,
+                        Path tempFile,
+                        String uploadedBy,
+                        Consumer<UploadJob> listener) throws IOException {
+        try (InputStream in = new ProgressInputStream(Files.newInputStream(tempFile), job, listener)) {
+            MediaFileDTO dto = storageBackend.uploadCatalogFile(
+                    job.getFileType(),
+                    titleName,
+                    job.getFileName(),
+                    contentType,
+                    in,
+                    job.getTotalBytes(),
+                    uploadedBy
+            );
+            dto.setContentSha256(job.getContentSha256());
+            contentHashService.register(job.getContentSha256(), dto);
+            job.setResult(dto);
+            job.setStatus(UploadJob.Status.DONE);
+        }
+    }
+
+    private static void notify(Consumer<UploadJob> listener, UploadJob job) {
+        if (listener == null) return;
+        try {
+            listener.accept(job);
+        } catch (RuntimeException e) {
+            // La página pudo cerrarse: la subida sigue igualmente
+            System.out.println("[BlobUploadService] No se pudo notificar " + job.getJobId() + ": " + e.getMessage());
+        }
+    }
+
+    private void evictExpired() {
+        long limit = System.currentTimeMillis() - JOB_RETENTION_MS;
+        jobs.values().removeIf(job -> job.isFinished() && job.getCreatedAt() < limit);
+    }
+
+    /**
+     * Cuenta los bytes leídos por el backend y notifica cada PROGRESS_STEP %
+     */
+    private static final class ProgressInputStream extends FilterInputStream {
+        private final UploadJob job;
+        private final Consumer<UploadJob> listener;
+        private long read;
+        private int lastNotified;
+
+        ProgressInputStream(InputStream in, UploadJob job, Consumer<UploadJob> listener) {
+            super(in);
+            this.job = job;
+            this.listener = listener;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) advance(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) advance(n);
+            return n;
+        }
+
+        private void advance(long n) {
+            read += n;
+            job.setBytesSent(read);
+            int percent = job.getPercent();
+            if (percent - lastNotified >= PROGRESS_STEP) {
+                lastNotified = percent;
+                BlobUploadService.notify(listener, job);
+            }
+        }
+    }
+}
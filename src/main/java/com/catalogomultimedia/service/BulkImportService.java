@@ -0,0 +1,862 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.ImportReportDTO;
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.entity.MediaFile;
+import com.catalogomultimedia.enums.TitleType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonException;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de títulos desde CSV o JSON.
+ * El archivo se lee en streaming, los géneros se resuelven con un mapa nombre → id en memoria y las
+ * filas se escriben en lotes JDBC (IMPORT_BATCH_SIZE) desde varios hilos (IMPORT_WORKERS). Las filas
+ * inválidas se escriben en un archivo de rechazos con su línea y el motivo.
+ *
+ * Columnas (cabecera CSV o claves JSON): title_name, title_type, release_year, synopsis, average_rating,
+ * genres (separados por | o array JSON), poster_url y technical_sheet_url (blobs ya subidos).
+ */
+@ApplicationScoped
+public class BulkImportService {
+
+    public enum Format {
+        CSV, JSON
+    }
+
+    // Marca de fin para los hilos de escritura (se compara por identidad)
+    private static final List<ImportRow> END = new ArrayList<>();
+    private static final String WRITERS_GONE = "Los hilos de escritura terminaron antes de tiempo";
+    private static final long PROGRESS_EVERY = 10_000;
+    // Igual que allocationSize de la secuencia media_titles_seq
+    private static final int ID_BLOCK = 50;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String INSERT_TITLE =
+            "INSERT INTO media_titles (media_title_id, title_name, title_type, release_year, synopsis, " +
+                    "average_rating, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_TITLE_GENRE =
+            "INSERT INTO media_title_genres (media_title_id, movie_genre_id) VALUES (?, ?)";
+    private static final String INSERT_FILE =
+            "INSERT INTO media_files (media_title_id, file_type, blob_url, etag, content_type, size_bytes, " +
+                    "uploaded_at, uploaded_by, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, true)";
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @Inject
+    private TitleSuggestionIndex suggestionIndex;
+
+    @Inject
+    private DashboardStatisticsCache statisticsCache;
+
+    @Inject
+    private PosterThumbnailService thumbnailService;
+
+    /**
+     * Importa el contenido del stream y devuelve el resumen al terminar. Solo se admite una
+     * importación a la vez.
+     */
+    public ImportReportDTO importTitles(InputStream in, Format format, String uploadedBy) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Ya hay una importación en curso");
+        }
+        try {
+            ImportReportDTO report = new ImportRun(uploadedBy).execute(in, format);
+            System.out.println("[BulkImportService] Importación terminada: " + report);
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /* -------------------- Una ejecución -------------------- */
+
+    private final class ImportRun {
+        private final int batchSize = Integer.parseInt(System.getProperty("IMPORT_BATCH_SIZE", "500"));
+        private final int workers = Integer.parseInt(System.getProperty("IMPORT_WORKERS", "4"));
+        private final boolean createGenres = Boolean.parseBoolean(System.getProperty("IMPORT_CREATE_GENRES", "true"));
+        private final String uploadedBy;
+
+        // Lotes pendientes: el lector se bloquea si los hilos de escritura no dan abasto
+        private final BlockingQueue<List<ImportRow>> queue;
+        // Solo lo usa el hilo lector
+        private final Map<String, Long> genreIds = new HashMap<>();
+        private final RejectWriter rejects;
+
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong read = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicInteger genresCreated = new AtomicInteger();
+
+        private ImportRun(String uploadedBy) {
+            this.uploadedBy = uploadedBy;
+            this.queue = new ArrayBlockingQueue<>(Math.max(2, workers * 2));
+            this.rejects = new RejectWriter(Paths.get(System.getProperty("IMPORT_REJECTS_DIR",
+                            System.getProperty("java.io.tmpdir")))
+                    .resolve("import-rejects-" + LocalDateTime.now().format(FILE_STAMP) + ".csv"));
+        }
+
+        ImportReportDTO execute(InputStream in, Format format) throws IOException {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+                Thread t = new Thread(r, "bulk-import-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+            List<Future<?>> writers = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                writers.add(pool.submit(this::drain));
+            }
+
+            EntityManager em = emf.createEntityManager();
+            boolean interrupted = false;
+            try {
+                loadGenres(em);
+                RecordSource source = format == Format.JSON
+                        ? new JsonSource(in)
+                        : new CsvSource(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024));
+
+                List<ImportRow> batch = new ArrayList<>(batchSize);
+                RawRecord record;
+                while ((record = source.next()) != null) {
+                    read.incrementAndGet();
+                    ImportRow row = toRow(em, record);
+                    if (row == null) continue;
+                    batch.add(row);
+                    if (batch.size() >= batchSize) {
+                        enqueueOrFail(batch, writers);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    enqueueOrFail(batch, writers);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                Thread.currentThread().interrupt();
+                throw new IOException("Importación interrumpida", e);
+            } finally {
+                if (interrupted) {
+                    pool.shutdownNow();
+                } else {
+                    finishWriters(writers);
+                }
+                pool.shutdown();
+                em.close();
+                rejects.close();
+                afterImport();
+            }
+
+            return new ImportReportDTO(read.get(), imported.get(), rejected.get(), genresCreated.get(),
+                    (System.nanoTime() - startNanos) / 1_000_000, rejects.pathIfWritten());
+        }
+
+        /**
+         * Encola un lote sin bloquearse para siempre: si todos los hilos de escritura han terminado
+         * (por un error) nadie vaciaría la cola, así que el lote se rechaza y se aborta la lectura
+         */
+        private void enqueueOrFail(List<ImportRow> batch, List<Future<?>> writers) throws InterruptedException, IOException {
+            if (!enqueue(batch, writers)) {
+                rejectAll(batch, WRITERS_GONE);
+                throw new IOException(WRITERS_GONE);
+            }
+        }
+
+        private boolean enqueue(List<ImportRow> batch, List<Future<?>> writers) throws InterruptedException {
+            while (!queue.offer(batch, 1, TimeUnit.SECONDS)) {
+                if (writers.stream().allMatch(Future::isDone)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void finishWriters(List<Future<?>> writers) {
+            try {
+                for (int i = 0; i < workers; i++) {
+                    if (!enqueue(END, writers)) break;
+                }
+                for (Future<?> writer : writers) {
+                    try {
+                        writer.get();
+                    } catch (ExecutionException e) {
+                        System.out.println("[BulkImportService] Error en un hilo de escritura: " + e.getCause());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Lotes que quedaron en la cola sin hilo que los escribiera
+            List<ImportRow> left;
+            while ((left = queue.poll()) != null) {
+                if (left != END) {
+                    rejectAll(left, WRITERS_GONE);
+                }
+            }
+        }
+
+        // Las escrituras JDBC no pasan por Hibernate: se refrescan a mano los datos derivados
+        private void afterImport() {
+            if (imported.get() == 0 && genresCreated.get() == 0) return;
+            try {
+                emf.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+                statisticsCache.invalidate();
+                suggestionIndex.reload();
+                thumbnailService.backfill();
+            } catch (Exception e) {
+                System.out.println("[BulkImportService] Error refrescando cachés tras la importación: " + e.getMessage());
+            }
+        }
+
+        /* ---------- Lectura y validación (hilo lector) ---------- */
+
+        private void loadGenres(EntityManager em) {
+            em.unwrap(Session.class).doWork(connection -> {
+                try (Statement st = connection.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT movie_genre_id, genre_name FROM movie_genres")) {
+                    while (rs.next()) {
+                        genreIds.put(genreKey(rs.getString(2)), rs.getLong(1));
+                    }
+                }
+            });
+        }
+
+        private ImportRow toRow(EntityManager em, RawRecord record) {
+            Map<String, String> f = record.fields;
+            ImportRow row = new ImportRow(record.line, record.raw);
+
+            row.titleName = f.get("title_name");
+            if (row.titleName == null || row.titleName.length() < 2 || row.titleName.length() > 150) {
+                return reject(row, "El nombre debe tener entre 2 y 150 caracteres");
+            }
+
+            try {
+                row.titleType = TitleType.valueOf(String.valueOf(f.get("title_type")).toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return reject(row, "Tipo de título no válido: " + f.get("title_type"));
+            }
+
+            try {
+                row.releaseYear = Integer.parseInt(String.valueOf(f.get("release_year")));
+            } catch (NumberFormatException e) {
+                return reject(row, "Año de lanzamiento no válido: " + f.get("release_year"));
+            }
+            if (row.releaseYear < 1900 || row.releaseYear > LocalDateTime.now().getYear()) {
+                return reject(row, "El año debe estar entre 1900 y el año actual");
+            }
+
+            row.synopsis = f.get("synopsis");
+            if (row.synopsis != null && row.synopsis.length() > 1000) {
+                return reject(row, "La sinopsis no puede exceder 1000 caracteres");
+            }
+
+            String rating = f.get("average_rating");
+            if (rating != null) {
+                try {
+                    row.averageRating = Double.parseDouble(rating);
+                } catch (NumberFormatException e) {
+                    return reject(row, "Calificación no válida: " + rating);
+                }
+                if (row.averageRating < 0.0 || row.averageRating > 10.0) {
+                    return reject(row, "La calificación debe estar entre 0.0 y 10.0");
+                }
+            }
+
+            Set<String> names = new LinkedHashSet<>();
+            if (f.get("genres") != null) {
+                for (String name : f.get("genres").split("\\|")) {
+                    if (!name.isBlank()) names.add(name.trim());
+                }
+            }
+            if (names.isEmpty()) {
+                return reject(row, "Debe asignar al menos un género");
+            }
+            Set<Long> ids = new LinkedHashSet<>();
+            for (String name : names) {
+                Long id = resolveGenre(em, name);
+                if (id == null) {
+                    return reject(row, "Género desconocido: " + name);
+                }
+                ids.add(id);
+            }
+            row.genreIds = ids;
+
+            row.posterUrl = f.get("poster_url");
+            row.technicalSheetUrl = f.get("technical_sheet_url");
+            return row;
+        }
+
+        private Long resolveGenre(EntityManager em, String name) {
+            Long id = genreIds.get(genreKey(name));
+            if (id != null || !createGenres || name.length() < 3 || name.length() > 50) {
+                return id;
+            }
+
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                id = em.unwrap(Session.class).doReturningWork(connection -> {
+                    try (PreparedStatement insert = connection.prepareStatement(
+                            "INSERT INTO movie_genres (genre_name) VALUES (?) ON CONFLICT (genre_name) DO NOTHING")) {
+                        insert.setString(1, name);
+                        insert.executeUpdate();
+                    }
+                    try (PreparedStatement select = connection.prepareStatement(
+                            "SELECT movie_genre_id FROM movie_genres WHERE genre_name = ?")) {
+                        select.setString(1, name);
+                        try (ResultSet rs = select.executeQuery()) {
+                            return rs.next() ? rs.getLong(1) : null;
+                        }
+                    }
+                });
+                tx.commit();
+            } catch (Exception e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                System.out.println("[BulkImportService] No se pudo crear el género " + name + ": " + e.getMessage());
+                return null;
+            }
+            genreIds.put(genreKey(name), id);
+            genresCreated.incrementAndGet();
+            return id;
+        }
+
+        private ImportRow reject(ImportRow row, String reason) {
+            rejected.incrementAndGet();
+            rejects.write(row.line, reason, row.raw);
+            return null;
+        }
+
+        private void rejectAll(List<ImportRow> rows, String reason) {
+            for (ImportRow row : rows) {
+                reject(row, reason);
+            }
+        }
+
+        /* ---------- Escritura (hilos bulk-import-N) ---------- */
+
+        private void drain() {
+            EntityManager em = emf.createEntityManager();
+            try {
+                while (true) {
+                    List<ImportRow> batch = queue.take();
+                    if (batch == END) return;
+                    try {
+                        write(em, batch);
+                    } catch (RuntimeException e) {
+                        // Un error inesperado rechaza el lote pero no mata el hilo: la cola se sigue vaciando
+                        System.out.println("[BulkImportService] Error escribiendo un lote: " + rootMessage(e));
+                        em.clear();
+                        rejectAll(batch, rootMessage(e));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                em.close();
+            }
+        }
+
+        private void write(EntityManager em, List<ImportRow> batch) {
+            List<ImportRow> rows = attachFiles(batch);
+            if (rows.isEmpty()) return;
+            try {
+                insertInTransaction(em, rows);
+                countImported(rows.size());
+            } catch (Exception e) {
+                // Un error invalida el lote entero: se repite fila a fila para rechazar solo las culpables
+                for (ImportRow row : rows) {
+                    try {
+                        insertInTransaction(em, List.of(row));
+                        countImported(1);
+                    } catch (Exception rowError) {
+                        reject(row, rootMessage(rowError));
+                    }
+                }
+            }
+        }
+
+        // Comprueba que los blobs referenciados existen y toma de ellos ETag, tipo y tamaño
+        private List<ImportRow> attachFiles(List<ImportRow> batch) {
+            List<ImportRow> rows = new ArrayList<>(batch.size());
+            for (ImportRow row : batch) {
+                try {
+                    row.poster = findBlob(row.posterUrl, MediaFile.FileType.POSTER);
+                    row.technicalSheet = findBlob(row.technicalSheetUrl, MediaFile.FileType.TECHNICAL_SHEET);
+                    rows.add(row);
+                } catch (IllegalArgumentException e) {
+                    reject(row, e.getMessage());
+                } catch (RuntimeException e) {
+                    // Fallo del almacenamiento (red, límite de peticiones): se rechaza la fila, no el lote
+                    reject(row, "No se pudo comprobar el archivo: " + rootMessage(e));
+                }
+            }
+            return rows;
+        }
+
+        private MediaFileDTO findBlob(String url, MediaFile.FileType type) {
+            if (url == null) return null;
+            if (url.length() > 500) {
+                throw new IllegalArgumentException("La URL del archivo excede 500 caracteres");
+            }
+            Optional<MediaFileDTO> blob = storageBackend.getBlob(storageBackend.blobNameFromUrl(url));
+            if (blob.isEmpty()) {
+                throw new IllegalArgumentException("No existe el archivo: " + url);
+            }
+            if (!type.isValidContentType(blob.get().getContentType())) {
+                throw new IllegalArgumentException("Tipo de archivo no permitido para " + type.getDisplayName()
+                        + ": " + blob.get().getContentType());
+            }
+            return blob.get();
+        }
+
+        private void insertInTransaction(EntityManager em, List<ImportRow> rows) {
+            EntityTransaction tx = em.getTransaction();
+            try {
+                tx.begin();
+                em.unwrap(Session.class).doWork(connection -> insertRows(connection, rows));
+                tx.commit();
+            } catch (RuntimeException e) {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+                em.clear();
+                throw e;
+            }
+        }
+
+        private void insertRows(Connection connection, List<ImportRow> rows) throws SQLException {
+            long[] ids = reserveTitleIds(connection, rows.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+            try (PreparedStatement titles = connection.prepareStatement(INSERT_TITLE);
+                 PreparedStatement genres = connection.prepareStatement(INSERT_TITLE_GENRE);
+                 PreparedStatement files = connection.prepareStatement(INSERT_FILE)) {
+                int fileCount = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    ImportRow row = rows.get(i);
+                    long id = ids[i];
+
+                    titles.setLong(1, id);
+                    titles.setString(2, row.titleName);
+                    titles.setString(3, row.titleType.name());
+                    titles.setInt(4, row.releaseYear);
+                    titles.setString(5, row.synopsis);
+                    if (row.averageRating != null) {
+                        titles.setDouble(6, row.averageRating);
+                    } else {
+                        titles.setNull(6, Types.DOUBLE);
+                    }
+                    titles.setTimestamp(7, now);
+                    titles.addBatch();
+
+                    for (Long genreId : row.genreIds) {
+                        genres.setLong(1, id);
+                        genres.setLong(2, genreId);
+                        genres.addBatch();
+                    }
+
+                    if (row.poster != null) {
+                        addFile(files, id, MediaFile.FileType.POSTER, row.poster, now);
+                        fileCount++;
+                    }
+                    if (row.technicalSheet != null) {
+                        addFile(files, id, MediaFile.FileType.TECHNICAL_SHEET, row.technicalSheet, now);
+                        fileCount++;
+                    }
+                }
+                titles.executeBatch();
+                genres.executeBatch();
+                if (fileCount > 0) {
+                    files.executeBatch();
+                }
+            }
+        }
+
+        // Reserva bloques de ID_BLOCK ids como el optimizador pooled de Hibernate: cada nextval es el
+        // extremo superior de un bloque (hi - 49 .. hi). Un solo viaje a la BD por lote.
+        private long[] reserveTitleIds(Connection connection, int count) throws SQLException {
+            long[] ids = new long[count];
+            int i = 0;
+            try (PreparedStatement st = connection.prepareStatement(
+                    "SELECT nextval('media_titles_seq') FROM generate_series(1, ?)")) {
+                // Normalmente una vuelta; con la secuencia recién creada el primer bloque queda por debajo de 1
+                while (i < count) {
+                    st.setInt(1, (count - i + ID_BLOCK - 1) / ID_BLOCK);
+                    try (ResultSet rs = st.executeQuery()) {
+                        while (i < count && rs.next()) {
+                            long hi = rs.getLong(1);
+                            for (long id = Math.max(1, hi - ID_BLOCK + 1); id <= hi && i < count; id++) {
+                                ids[i++] = id;
+                            }
+                        }
+                    }
+                }
+            }
+            return ids;
+        }
+
+        private void addFile(PreparedStatement files, long titleId, MediaFile.FileType type,
+                             MediaFileDTO blob, Timestamp now) throws SQLException {
+            files.setLong(1, titleId);
+            files.setString(2, type.name());
+            files.setString(3, blob.getBlobUrl());
+            files.setString(4, blob.getEtag());
+            files.setString(5, blob.getContentType());
+            if (blob.getSizeBytes() != null) {
+                files.setLong(6, blob.getSizeBytes());
+            } else {
+                files.setNull(6, Types.BIGINT);
+            }
+            files.setTimestamp(7, now);
+            files.setString(8, uploadedBy);
+            files.addBatch();
+        }
+
+        private void countImported(int rows) {
+            long before = imported.getAndAdd(rows);
+            long after = before + rows;
+            if (after / PROGRESS_EVERY > before / PROGRESS_EVERY) {
+                double seconds = (System.nanoTime() - startNanos) / 1e9;
+                System.out.printf("[BulkImportService] %d filas importadas (%.0f filas/s, %d rechazadas)%n",
+                        after, seconds > 0 ? after / seconds : after, rejected.get());
+            }
+        }
+    }
+
+    /* -------------------- Helpers -------------------- */
+
+    private static String genreKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // titleName / title-name / title_name → title_name
+    private static String columnKey(String name) {
+        return name.trim()
+                .replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                .replace('-', '_')
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        if (root instanceof SQLException && ((SQLException) root).getNextException() != null) {
+            root = ((SQLException) root).getNextException();
+        }
+        return root.getMessage();
+    }
+
+    private static String emptyToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    /**
+     * Fila ya validada, lista para escribir
+     */
+    private static final class ImportRow {
+        private final long line;
+        private final String raw;
+        private String titleName;
+        private TitleType titleType;
+        private int releaseYear;
+        private String synopsis;
+        private Double averageRating;
+        private Set<Long> genreIds;
+        private String posterUrl;
+        private String technicalSheetUrl;
+        private MediaFileDTO poster;
+        private MediaFileDTO technicalSheet;
+
+        private ImportRow(long line, String raw) {
+            this.line = line;
+            this.raw = raw;
+        }
+    }
+
+    /**
+     * Registro tal como viene del archivo: columnas normalizadas y texto original para los rechazos
+     */
+    private static final class RawRecord {
+        private final long line;
+        private final Map<String, String> fields;
+        private final String raw;
+
+        private RawRecord(long line, Map<String, String> fields, String raw) {
+            this.line = line;
+            this.fields = fields;
+            this.raw = raw;
+        }
+    }
+
+    private interface RecordSource {
+        RawRecord next() throws IOException;
+    }
+
+    /**
+     * CSV (RFC 4180) leído registro a registro: comillas dobles, comas y saltos de línea dentro de
+     * campos entrecomillados. La primera fila es la cabecera.
+     */
+    private static final class CsvSource implements RecordSource {
+        private final BufferedReader reader;
+        private final StringBuilder raw = new StringBuilder();
+        private final String[] header;
+        private long nextLine = 1;
+        private long recordLine;
+
+        private CsvSource(BufferedReader reader) throws IOException {
+            this.reader = reader;
+            List<String> names = readRecord();
+            if (names == null) {
+                header = new String[0];
+                return;
+            }
+            header = new String[names.size()];
+            for (int i = 0; i < header.length; i++) {
+                String name = names.get(i);
+                // BOM de archivos guardados con Excel
+                if (i == 0 && name.startsWith("\uFEFF")) name = name.substring(1);
+                header[i] = columnKey(name);
+            }
+        }
+
+        @Override
+        public RawRecord next() throws IOException {
+            List<String> values;
+            do {
+                values = readRecord();
+                if (values == null) return null;
+            } while (values.size() == 1 && values.get(0).isBlank());
+
+            Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < header.length && i < values.size(); i++) {
+                String value = emptyToNull(values.get(i));
+                if (value != null) fields.put(header[i], value);
+            }
+            return new RawRecord(recordLine, fields, raw.toString());
+        }
+
+        private List<String> readRecord() throws IOException {
+            int c = reader.read();
+            if (c == -1) return null;
+
+            raw.setLength(0);
+            recordLine = nextLine;
+            List<String> values = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            while (c != -1) {
+                if (quoted) {
+                    raw.append((char) c);
+                    if (c == '"') {
+                        reader.mark(1);
+                        int n = reader.read();
+                        if (n == '"') {
+                            raw.append('"');
+                            field.append('"');
+                        } else {
+                            quoted = false;
+                            reader.reset();
+                        }
+                    } else {
+                        if (c == '\n') nextLine++;
+                        field.append((char) c);
+                    }
+                } else if (c == '\n') {
+                    nextLine++;
+                    break;
+                } else if (c != '\r') {
+                    raw.append((char) c);
+                    if (c == '"' && field.length() == 0) {
+                        quoted = true;
+                    } else if (c == ',') {
+                        values.add(field.toString());
+                        field.setLength(0);
+                    } else {
+                        field.append((char) c);
+                    }
+                }
+                c = reader.read();
+            }
+            values.add(field.toString());
+            return values;
+        }
+    }
+
+    /**
+     * Array JSON de objetos leído con el parser de streaming: solo hay un objeto en memoria a la vez
+     */
+    private static final class JsonSource implements RecordSource {
+        private final JsonParser parser;
+
+        private JsonSource(InputStream in) throws IOException {
+            this.parser = Json.createParser(in);
+            if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                throw new IOException("Se esperaba un array JSON de títulos");
+            }
+        }
+
+        @Override
+        public RawRecord next() throws IOException {
+            try {
+                return nextObject();
+            } catch (JsonException e) {
+                throw new IOException("JSON no válido: " + e.getMessage(), e);
+            }
+        }
+
+        private RawRecord nextObject() throws IOException {
+            while (parser.hasNext()) {
+                JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_ARRAY) {
+                    return null;
+                }
+                if (event != JsonParser.Event.START_OBJECT) {
+                    throw new IOException("Se esperaba un objeto JSON en la línea " + parser.getLocation().getLineNumber());
+                }
+                long line = parser.getLocation().getLineNumber();
+                JsonObject object = parser.getObject();
+
+                Map<String, String> fields = new LinkedHashMap<>();
+                for (Map.Entry<String, JsonValue> entry : object.entrySet()) {
+                    String value = emptyToNull(asText(entry.getValue()));
+                    if (value != null) fields.put(columnKey(entry.getKey()), value);
+                }
+                return new RawRecord(line, fields, object.toString());
+            }
+            return null;
+        }
+
+        private static String asText(JsonValue value) {
+            switch (value.getValueType()) {
+                case STRING:
+                    return ((JsonString) value).getString();
+                case NUMBER:
+                    return ((JsonNumber) value).toString();
+                case ARRAY:
+                    return ((JsonArray) value).stream()
+                            .map(JsonSource::asText)
+                            .filter(s -> s != null)
+                            .collect(Collectors.joining("|"));
+                case NULL:
+                    return null;
+                default:
+                    return value.toString();
+            }
+        }
+    }
+
+    /**
+     * Archivo de rechazos (line,reason,record); se crea con el primer rechazo
+     */
+    private static final class RejectWriter {
+        private final Path path;
+        private BufferedWriter out;
+        private boolean failed;
+
+        private RejectWriter(Path path) {
+            this.path = path;
+        }
+
+        synchronized void write(long line, String reason, String record) {
+            if (failed) return;
+            try {
+                if (out == null) {
+                    Files.createDirectories(path.getParent());
+                    out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+                    out.write("line,reason,record");
+                    out.newLine();
+                }
+                out.write(line + "," + quote(reason) + "," + quote(record));
+                out.newLine();
+            } catch (IOException e) {
+                failed = true;
+                System.out.println("[BulkImportService] No se pudo escribir el archivo de rechazos " + path + ": " + e.getMessage());
+            }
+        }
+
+        synchronized void close() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        synchronized String pathIfWritten() {
+            return out != null ? path.toString() : null;
+        }
+
+        private static String quote(String value) {
+            return value == null ? "" : "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
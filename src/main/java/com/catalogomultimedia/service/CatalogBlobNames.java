@@ -0,0 +1,67 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.enums.FileType;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Nombres y tipos de los archivos del catálogo, comunes a todos los StorageBackend
+ */
+final class CatalogBlobNames {
+
+    private CatalogBlobNames() {
+    }
+
+    static String slug(String text) {
+        if (text == null) return "untitled";
+        return text.trim().toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", "_")
+                .replaceAll("^_+|_+$", "");
+    }
+
+    static String guessExtension(String fileName, String contentType, FileType type) {
+        if (fileName != null && fileName.contains(".")) {
+            return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        }
+        if ("application/pdf".equalsIgnoreCase(contentType)) return "pdf";
+        if ("image/png".equalsIgnoreCase(contentType)) return "png";
+        if ("image/jpeg".equalsIgnoreCase(contentType)) return "jpg";
+        return (type == FileType.TECHNICAL_SHEET) ? "pdf" : "jpg";
+    }
+
+    // Fallback de content-type si viene vacío
+    static String resolveContentType(String contentType, String ext) {
+        if (contentType == null || contentType.isBlank() || "application/octet-stream".equalsIgnoreCase(contentType)) {
+            return switch (ext.toLowerCase(Locale.ROOT)) {
+                case "png" -> "image/png";
+                case "jpg", "jpeg" -> "image/jpeg";
+                case "pdf" -> "application/pdf";
+                default -> "application/octet-stream";
+            };
+        }
+        return contentType;
+    }
+
+    static String buildPath(FileType type, String safeTitle, String ext) {
+        String folder = (type == FileType.POSTER) ? "posters" : "fichas";
+        long ts = System.currentTimeMillis();
+        return String.format("%s/%s/%d.%s", folder, safeTitle, ts, ext);
+    }
+
+    static FileType inferTypeByPath(String blobName) {
+        if (blobName.startsWith("posters/")) return FileType.POSTER;
+        if (blobName.startsWith("fichas/")) return FileType.TECHNICAL_SHEET;
+        return null;
+    }
+
+    static FileType fileTypeFromMetaOr(FileType fallback, Map<String, String> meta) {
+        if (meta != null && meta.containsKey("fileType")) {
+            try {
+                return FileType.valueOf(meta.get("fileType"));
+            } catch (Exception ignored) {
+            }
+        }
+        return fallback;
+    }
+}
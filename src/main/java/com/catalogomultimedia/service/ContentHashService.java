@@ -0,0 +1,167 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.entity.BlobContentHash;
+import com.catalogomultimedia.entity.MediaFile;
+import com.catalogomultimedia.enums.FileType;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicación por contenido: SHA-256 de cada archivo subido → blob que lo contiene.
+ * Usa su propio EntityManager porque se llama desde los hilos de subida.
+ */
+@ApplicationScoped
+public class ContentHashService {
+
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    /**
+     * Copia el stream a target y devuelve su SHA-256 en hexadecimal, en una sola pasada
+     */
+    public static String copyAndHash(InputStream in, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        try (DigestInputStream hashing = new DigestInputStream(in, digest);
+             OutputStream out = Files.newOutputStream(target)) {
+            hashing.transferTo(out);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Devuelve el blob ya subido con ese contenido, si sigue existiendo en el almacenamiento
+     */
+    public Optional<MediaFileDTO> findDuplicate(String sha256, FileType fileType) {
+        if (sha256 == null) return Optional.empty();
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            BlobContentHash hash = em.find(BlobContentHash.class, sha256);
+            if (hash == null || !hash.getFileType().name().equals(fileType.name())) {
+                return Optional.empty();
+            }
+            // Antes de comprobar el blob: el MediaFile nuevo se guarda más tarde y, hasta entonces,
+            // esta marca es lo que impide que BlobOrphanReconciler lo trate como huérfano
+            if (!markReused(em, hash)) {
+                return Optional.empty();
+            }
+
+            Optional<MediaFileDTO> blob = storageBackend.getBlob(hash.getBlobName());
+            if (blob.isEmpty()) {
+                // El blob se borró fuera de la aplicación: la entrada ya no sirve
+                remove(em, hash);
+                return Optional.empty();
+            }
+
+            duplicates.incrementAndGet();
+            savedBytes.addAndGet(hash.getSizeBytes() != null ? hash.getSizeBytes() : 0);
+            MediaFileDTO dto = blob.get();
+            dto.setContentSha256(sha256);
+            return Optional.of(dto);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Registra el blob recién subido. Si otra subida con el mismo contenido ganó la carrera se
+     * conserva la primera entrada.
+     */
+    public void register(String sha256, MediaFileDTO dto) {
+        if (sha256 == null || dto == null) return;
+
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            if (em.find(BlobContentHash.class, sha256) == null) {
+                BlobContentHash hash = new BlobContentHash();
+                hash.setContentSha256(sha256);
+                hash.setFileType(MediaFile.FileType.valueOf(dto.getFileType().name()));
+                hash.setBlobName(dto.getBlobName());
+                hash.setBlobUrl(dto.getBlobUrl());
+                hash.setEtag(dto.getEtag());
+                hash.setContentType(dto.getContentType());
+                hash.setSizeBytes(dto.getSizeBytes());
+                em.persist(hash);
+            }
+            tx.commit();
+        } catch (Exception e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            System.out.println("[ContentHashService] No se pudo registrar " + sha256 + ": " + e.getMessage());
+        } finally {
+            em.close();
+        }
+    }
+
+    public long getDuplicateCount() {
+        return duplicates.get();
+    }
+
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    private static boolean markReused(EntityManager em, BlobContentHash hash) {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            hash.setLastReusedAt(LocalDateTime.now());
+            tx.commit();
+            return true;
+        } catch (Exception e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            // Sin la marca no es seguro reutilizarlo: se sube el archivo de nuevo
+            System.out.println("[ContentHashService] No se pudo marcar la reutilización de " + hash.getBlobName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void remove(EntityManager em, BlobContentHash hash) {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            em.remove(hash);
+            tx.commit();
+        } catch (Exception e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -1,56 +1,101 @@
 package com.catalogomultimedia.service;
 
+import com.catalogomultimedia.config.JpaTransactional;
+import com.catalogomultimedia.entity.MediaFile.FileType;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonReader;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
-import java.util.HashMap;
-import java.util.List;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @ApplicationScoped
+@JpaTransactional(readOnly = true)
 public class DashboardService {
 
-    @Inject
-    private MediaTitleService mediaTitleService;
-
-    @Inject
-    private MovieGenreService movieGenreService;
-
-    @Inject
-    private MediaFileService mediaFileService;
+    private static final int TOP_GENRES = 5;
+
+    /**
+     * Todas las estadísticas en una sola ida a la BD: agregados condicionales (FILTER)
+     * por tabla y el top de géneros (tabla genre_usage) serializado como JSON en la misma fila.
+     */
+    private static final String STATISTICS_SQL =
+            "WITH titles AS (" +
+                    " SELECT COUNT(*) AS total," +
+                    " COUNT(*) FILTER (WHERE title_type = 'MOVIE') AS movies," +
+                    " COUNT(*) FILTER (WHERE title_type = 'SERIES') AS series," +
+                    " COUNT(*) FILTER (WHERE created_at >= :since) AS last_month" +
+                    " FROM media_titles)," +
+                    " files AS (" +
+                    " SELECT COUNT(*) AS total," +
+                    " COALESCE(SUM(size_bytes), 0) AS total_bytes," +
+                    " COUNT(DISTINCT media_title_id) FILTER (WHERE file_type = 'POSTER') AS titles_with_poster," +
+                    " COUNT(*) FILTER (WHERE file_type = 'POSTER') AS posters," +
+                    " COUNT(*) FILTER (WHERE file_type = 'TECHNICAL_SHEET') AS sheets" +
+                    " FROM media_files WHERE is_active = true)," +
+                    " top_genres AS (" +
+                    " SELECT g.genre_name, u.title_count AS titles" +
+                    " FROM genre_usage u JOIN movie_genres g ON g.movie_genre_id = u.movie_genre_id" +
+                    " WHERE u.title_count > 0 ORDER BY u.title_count DESC, u.movie_genre_id LIMIT :topGenres)" +
+                    " SELECT t.total, t.movies, t.series, t.last_month," +
+                    " (SELECT COUNT(*) FROM movie_genres)," +
+                    " f.total, f.total_bytes, f.titles_with_poster, f.posters, f.sheets," +
+                    " (SELECT CAST(COALESCE(json_agg(json_build_array(genre_name, titles)" +
+                    " ORDER BY titles DESC, genre_name), '[]') AS text) FROM top_genres)" +
+                    " FROM titles t, files f";
 
     @Inject
     private EntityManager em;
 
     public DashboardStatistics getDashboardStatistics() {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
+            Object[] row = (Object[]) em.createNativeQuery(STATISTICS_SQL)
+                    .setParameter("since", LocalDateTime.now().minusMonths(1))
+                    .setParameter("topGenres", TOP_GENRES)
+                    .getSingleResult();
 
             DashboardStatistics stats = new DashboardStatistics();
-
-            stats.setTotalTitles(mediaTitleService.countTotalTitles());
-            stats.setTotalMovies(mediaTitleService.countMovies());
-            stats.setTotalSeries(mediaTitleService.countSeries());
-            stats.setTotalGenres(movieGenreService.countTotalGenres());
-            stats.setTotalFiles(mediaFileService.countTotalFiles());
-            stats.setTitlesWithPoster(mediaTitleService.countTitlesWithPoster());
-            stats.setTitlesLastMonth(mediaTitleService.countTitlesFromLastMonth());
-
-
-
-            tx.commit();
+            stats.setTotalTitles(toLong(row[0]));
+            stats.setTotalMovies(toLong(row[1]));
+            stats.setTotalSeries(toLong(row[2]));
+            stats.setTitlesLastMonth(toLong(row[3]));
+            stats.setTotalGenres(toLong(row[4]));
+            stats.setTotalFiles(toLong(row[5]));
+            stats.setTotalStorageMB(toLong(row[6]) / (1024.0 * 1024.0));
+            stats.setTitlesWithPoster(toLong(row[7]));
+
+            Map<String, Long> filesByType = new LinkedHashMap<>();
+            filesByType.put(FileType.POSTER.getDisplayName(), toLong(row[8]));
+            filesByType.put(FileType.TECHNICAL_SHEET.getDisplayName(), toLong(row[9]));
+            stats.setFilesByType(filesByType);
+
+            stats.setTopGenres(parseTopGenres((String) row[10]));
             return stats;
 
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al obtener estadísticas del dashboard", e);
         }
     }
 
+    private static Map<String, Long> parseTopGenres(String json) {
+        Map<String, Long> topGenres = new LinkedHashMap<>();
+        if (json == null) return topGenres;
+        try (JsonReader reader = Json.createReader(new StringReader(json))) {
+            for (JsonArray pair : reader.readArray().getValuesAs(JsonArray.class)) {
+                topGenres.put(pair.getString(0), pair.getJsonNumber(1).longValue());
+            }
+        }
+        return topGenres;
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? 0L : ((Number) value).longValue();
+    }
+
     // 📊 Clase interna que representa las estadísticas del panel
     public static class DashboardStatistics {
         private Long totalTitles;
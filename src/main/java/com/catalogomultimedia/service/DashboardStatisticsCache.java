@@ -0,0 +1,103 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.config.DataSourceRoute;
+import com.catalogomultimedia.service.DashboardService.DashboardStatistics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caché de las estadísticas del dashboard (página de bienvenida).
+ * Se recalcula cuando vence DASHBOARD_CACHE_TTL_SECONDS o cuando algún servicio
+ * registra una escritura; mientras un hilo recalcula, el resto sirve la copia anterior.
+ */
+@ApplicationScoped
+public class DashboardStatisticsCache {
+
+    @Inject
+    private DashboardService dashboardService;
+
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+    private long ttlNanos;
+
+    @PostConstruct
+    void init() {
+        long ttlSeconds = Long.parseLong(System.getProperty("DASHBOARD_CACHE_TTL_SECONDS", "60"));
+        ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    public DashboardStatistics get() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current.stats;
+        }
+
+        if (current != null && !refreshLock.tryLock()) {
+            // Otro hilo ya está recalculando
+            return current.stats;
+        }
+        if (current == null) {
+            refreshLock.lock();
+        }
+        try {
+            current = snapshot;
+            if (isFresh(current)) {
+                return current.stats;
+            }
+            return load().stats;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Recalcula sin esperar a que venza el TTL (botón "Actualizar")
+     */
+    public DashboardStatistics refresh() {
+        refreshLock.lock();
+        try {
+            return load().stats;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    // Llamado por los servicios al confirmarse cada escritura (AfterCommit), nunca antes del commit
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    private Snapshot load() {
+        long loadedVersion = version.get();
+        // Siempre del primario: tras invalidate() una réplica con retraso devolvería las cifras anteriores
+        // a la escritura, que quedarían guardadas con la versión nueva hasta que venza el TTL
+        DashboardStatistics stats = DataSourceRoute.onPrimary(dashboardService::getDashboardStatistics);
+        Snapshot fresh = new Snapshot(stats, System.nanoTime(), loadedVersion);
+        snapshot = fresh;
+        return fresh;
+    }
+
+    private boolean isFresh(Snapshot s) {
+        return s != null
+                && s.version == version.get()
+                && System.nanoTime() - s.loadedAt < ttlNanos;
+    }
+
+    private static final class Snapshot {
+        private final DashboardStatistics stats;
+        private final long loadedAt;
+        private final long version;
+
+        private Snapshot(DashboardStatistics stats, long loadedAt, long version) {
+            this.stats = stats;
+            this.loadedAt = loadedAt;
+            this.version = version;
+        }
+    }
+}
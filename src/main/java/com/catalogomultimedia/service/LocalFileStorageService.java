@@ -0,0 +1,358 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.BlobPageDTO;
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.enums.FileType;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Typed;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento en disco local (nodos on-prem/edge y pruebas de carga sin Azure).
+ * Los archivos se guardan bajo LOCAL_STORAGE_DIR con la misma estructura de nombres que en Azure;
+ * los metadatos van en .meta/{nombre}.properties. Las URLs firmadas las sirve LocalStorageServlet.
+ */
+@ApplicationScoped
+@Typed(LocalFileStorageService.class)
+public class LocalFileStorageService implements StorageBackend {
+
+    private static final String META_DIR = ".meta";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    // transferFrom/transferTo por tramos para no depender de la implementación del canal
+    private static final long TRANSFER_CHUNK = 8L * 1024 * 1024;
+
+    private Path root;
+    private String baseUrl;
+    private long mmapMaxBytes;
+    private byte[] signingKey;
+
+    @PostConstruct
+    void init() {
+        root = Paths.get(System.getProperty("LOCAL_STORAGE_DIR",
+                Paths.get(System.getProperty("java.io.tmpdir"), "catalogo-storage").toString()))
+                .toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root.resolve(META_DIR));
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo crear LOCAL_STORAGE_DIR: " + root, e);
+        }
+
+        baseUrl = System.getProperty("LOCAL_STORAGE_BASE_URL", "storage");
+        mmapMaxBytes = Long.parseLong(System.getProperty("LOCAL_STORAGE_MMAP_MAX_KB", "2048")) * 1024;
+
+        String secret = System.getProperty("LOCAL_STORAGE_SECRET");
+        if (secret == null || secret.isBlank()) {
+            // Sin secreto configurado las URLs firmadas dejan de valer al reiniciar
+            signingKey = new byte[32];
+            new SecureRandom().nextBytes(signingKey);
+        } else {
+            signingKey = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        System.out.println("[LocalFileStorageService] Archivos en " + root);
+    }
+
+    @Override
+    public MediaFileDTO uploadCatalogFile(FileType fileType,
+                                          String titleName,
+                                          String originalFileName,
+                                          String contentType,
+                                          InputStream data,
+                                          long sizeBytes,
+                                          String uploadedBy) {
+
+        String safeTitle = CatalogBlobNames.slug(titleName);
+        String ext = CatalogBlobNames.guessExtension(originalFileName, contentType, fileType);
+        contentType = CatalogBlobNames.resolveContentType(contentType, ext);
+
+        String blobPath = CatalogBlobNames.buildPath(fileType, safeTitle, ext);
+
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("uploadedBy", uploadedBy != null ? uploadedBy : "unknown");
+        metadata.put("fileType", fileType.name());
+        metadata.put("titleName", safeTitle);
+
+        return putBlob(blobPath, contentType, data, sizeBytes, metadata);
+    }
+
+    @Override
+    public MediaFileDTO putBlob(String blobPath,
+                                String contentType,
+                                InputStream data,
+                                long sizeBytes,
+                                Map<String, String> metadata) {
+        Path target = resolve(blobPath);
+        Map<String, String> stored = new HashMap<>(metadata);
+        stored.put("contentType", contentType);
+
+        try {
+            Files.createDirectories(target.getParent());
+            // Se escribe en un temporal oculto y se mueve al final: nunca se lista un archivo a medias
+            Path tmp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE);
+                     ReadableByteChannel in = Channels.newChannel(data)) {
+                    long position = 0;
+                    long n;
+                    while ((n = out.transferFrom(in, position, TRANSFER_CHUNK)) > 0) {
+                        position += n;
+                    }
+                }
+                writeMetadata(blobPath, stored);
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al guardar " + blobPath, e);
+        }
+
+        return getBlob(blobPath).orElseThrow();
+    }
+
+    @Override
+    public Optional<MediaFileDTO> getBlob(String blobName) {
+        Path file = resolve(blobName);
+        if (!Files.isRegularFile(file)) return Optional.empty();
+        try {
+            return Optional.of(toDto(blobName, Files.readAttributes(file, BasicFileAttributes.class)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Stream<MediaFileDTO> streamBlobs(String prefix) {
+        return walkNames(prefix).flatMap(name -> getBlob(name).stream());
+    }
+
+    /**
+     * Orden lexicográfico por nombre; el token es el último nombre devuelto.
+     * Solo se retienen pageSize nombres mientras se recorre el árbol.
+     */
+    @Override
+    public BlobPageDTO listBlobsPage(String prefix, String continuationToken, int pageSize) {
+        TreeSet<String> page = new TreeSet<>();
+        boolean more = false;
+        try (Stream<String> names = walkNames(prefix)) {
+            for (String name : (Iterable<String>) names::iterator) {
+                if (continuationToken != null && name.compareTo(continuationToken) <= 0) continue;
+                page.add(name);
+                if (page.size() > pageSize) {
+                    page.pollLast();
+                    more = true;
+                }
+            }
+        }
+
+        List<MediaFileDTO> items = new ArrayList<>(page.size());
+        for (String name : page) {
+            getBlob(name).ifPresent(items::add);
+        }
+        return new BlobPageDTO(items, more && !page.isEmpty() ? page.last() : null);
+    }
+
+    @Override
+    public boolean deleteBlob(String blobName) {
+        try {
+            Files.deleteIfExists(metadataPath(blobName));
+            return Files.deleteIfExists(resolve(blobName));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al eliminar " + blobName, e);
+        }
+    }
+
+    @Override
+    public String generateReadUrl(String blobName, OffsetDateTime expiresAt, boolean inline) {
+        long expires = expiresAt.toEpochSecond();
+        String disposition = inline ? "inline" : "attachment";
+        return baseUrl + "/" + blobName + "?exp=" + expires + "&disp=" + disposition
+                + "&sig=" + sign(blobName, expires, disposition);
+    }
+
+    @Override
+    public String blobNameFromUrl(String url) {
+        if (url == null) return null;
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        String prefix = baseUrl + "/";
+        return path.startsWith(prefix) ? path.substring(prefix.length()) : path;
+    }
+
+    /**
+     * Comprueba una URL generada por generateReadUrl (firma y caducidad)
+     */
+    public boolean verifyReadUrl(String blobName, String expires, String disposition, String signature) {
+        if (blobName == null || expires == null || disposition == null || signature == null) return false;
+        long exp;
+        try {
+            exp = Long.parseLong(expires);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (exp < Instant.now().getEpochSecond()) return false;
+        return MessageDigest.isEqual(
+                sign(blobName, exp, disposition).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public InputStream openStream(String blobName) throws IOException {
+        return Files.newInputStream(resolve(blobName));
+    }
+
+    /**
+     * Archivos pequeños (pósters) se leen mapeados en memoria; el resto con transferTo
+     */
+    @Override
+    public void download(String blobName, long offset, long length, OutputStream out) throws IOException {
+        Path file = resolve(blobName);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = in.size();
+            long end = length < 0 ? size : Math.min(size, offset + length);
+            if (offset >= end) return;
+
+            // No se cierra: cerraría la salida del llamador
+            WritableByteChannel target = Channels.newChannel(out);
+            long count = end - offset;
+            if (count <= mmapMaxBytes) {
+                MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, offset, count);
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+            } else {
+                long position = offset;
+                while (position < end) {
+                    position += in.transferTo(position, Math.min(TRANSFER_CHUNK, end - position), target);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException("No existe " + blobName, e);
+        }
+    }
+
+    /* -------------------- Helpers -------------------- */
+
+    private Path resolve(String blobName) {
+        Path path = root.resolve(blobName).normalize();
+        if (!path.startsWith(root) || blobName.startsWith(META_DIR)) {
+            throw new IllegalArgumentException("Nombre de archivo no válido: " + blobName);
+        }
+        return path;
+    }
+
+    private Path metadataPath(String blobName) {
+        return root.resolve(META_DIR).resolve(blobName + ".properties").normalize();
+    }
+
+    // Nombres relativos con '/', sin ocultos ni temporales; el stream debe cerrarse
+    private Stream<String> walkNames(String prefix) {
+        String p = prefix == null ? "" : prefix;
+        Path start = root.resolve(p.contains("/") ? p.substring(0, p.lastIndexOf('/')) : "").normalize();
+        if (!start.startsWith(root) || !Files.isDirectory(start)) return Stream.empty();
+        try {
+            return Files.walk(start)
+                    .filter(Files::isRegularFile)
+                    .map(path -> root.relativize(path).toString().replace('\\', '/'))
+                    .filter(name -> !isHidden(name) && name.startsWith(p));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isHidden(String name) {
+        return name.startsWith(".") || name.contains("/.");
+    }
+
+    private MediaFileDTO toDto(String blobName, BasicFileAttributes attrs) {
+        Map<String, String> metadata = readMetadata(blobName);
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        MediaFileDTO dto = new MediaFileDTO();
+        dto.setBlobUrl(baseUrl + "/" + blobName);
+        dto.setBlobName(blobName);
+        dto.setEtag("\"0x" + Long.toHexString(modified) + Long.toHexString(attrs.size()) + "\"");
+        dto.setContentType(metadata.getOrDefault("contentType",
+                CatalogBlobNames.resolveContentType(null, extensionOf(blobName))));
+        dto.setSizeBytes(attrs.size());
+        dto.setUploadedAt(OffsetDateTime.ofInstant(Instant.ofEpochMilli(modified), ZoneOffset.UTC));
+        dto.setUploadedBy(metadata.get("uploadedBy"));
+        dto.setFileType(CatalogBlobNames.fileTypeFromMetaOr(CatalogBlobNames.inferTypeByPath(blobName), metadata));
+        return dto;
+    }
+
+    private void writeMetadata(String blobName, Map<String, String> metadata) throws IOException {
+        Path file = metadataPath(blobName);
+        Files.createDirectories(file.getParent());
+        Properties props = new Properties();
+        props.putAll(metadata);
+        try (Writer w = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            props.store(w, null);
+        }
+    }
+
+    private Map<String, String> readMetadata(String blobName) {
+        Map<String, String> metadata = new HashMap<>();
+        Path file = metadataPath(blobName);
+        if (!Files.isRegularFile(file)) return metadata;
+        Properties props = new Properties();
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            props.load(r);
+        } catch (IOException e) {
+            return metadata;
+        }
+        props.stringPropertyNames().forEach(k -> metadata.put(k, props.getProperty(k)));
+        return metadata;
+    }
+
+    private static String extensionOf(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1);
+    }
+
+    private String sign(String blobName, long expires, String disposition) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey, HMAC_ALGORITHM));
+            byte[] sig = mac.doFinal((blobName + "\n" + expires + "\n" + disposition).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo firmar la URL", e);
+        }
+    }
+}
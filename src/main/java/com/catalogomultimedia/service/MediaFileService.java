@@ -1,20 +1,26 @@
 package com.catalogomultimedia.service;
 
+import com.catalogomultimedia.config.AfterCommit;
+import com.catalogomultimedia.config.JpaTransactional;
 import com.catalogomultimedia.entity.MediaFile;
 import com.catalogomultimedia.entity.MediaFile.FileType;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 
 @ApplicationScoped
+@JpaTransactional(readOnly = true)
 public class MediaFileService {
 
     @Inject
     private EntityManager em;
 
+    @Inject
+    private DashboardStatisticsCache statisticsCache;
+
+    @JpaTransactional
     public void delete(MediaFile mediaFile) {
         if (mediaFile == null || mediaFile.getMediaFileId() == null) {
             throw new IllegalArgumentException("Archivo no válido o sin ID.");
@@ -23,30 +29,32 @@ public class MediaFileService {
         MediaFile managed = em.find(MediaFile.class, mediaFile.getMediaFileId());
         if (managed != null) {
             em.remove(managed);
+            em.flush();
+            AfterCommit.run(em, statisticsCache::invalidate);
         } else {
             throw new IllegalArgumentException("El archivo no existe o ya fue eliminado.");
         }
     }
 
+    @JpaTransactional
     public void save(MediaFile mediaFile) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-
             if (mediaFile.getMediaFileId() == null) {
                 em.persist(mediaFile);
             } else {
                 em.merge(mediaFile);
             }
 
-            tx.commit();
+            em.flush();
+            AfterCommit.run(em, statisticsCache::invalidate);
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al guardar archivo multimedia", e);
         }
     }
+    public MediaFile findById(Long id) {
+        return id == null ? null : em.find(MediaFile.class, id);
+    }
+
     public List<MediaFile> findAll() {
         TypedQuery<MediaFile> query = em.createQuery(
                 "SELECT mf FROM MediaFile mf WHERE mf.isActive = true",
@@ -1,25 +1,54 @@
 package com.catalogomultimedia.service;
 
+import com.catalogomultimedia.config.AfterCommit;
+import com.catalogomultimedia.config.JpaTransactional;
+import com.catalogomultimedia.dtos.MediaTitleSearchCriteria;
+import com.catalogomultimedia.entity.MediaFile;
 import com.catalogomultimedia.entity.MediaTitle;
+import com.catalogomultimedia.entity.MovieGenre;
+import com.catalogomultimedia.enums.FetchPlan;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.hibernate.graph.GraphSemantic;
+import org.hibernate.jpa.QueryHints;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 @ApplicationScoped
+@JpaTransactional(readOnly = true)
 public class MediaTitleService {
 
+    private static final Set<String> SORTABLE_FIELDS =
+            Set.of("titleName", "titleType", "releaseYear", "averageRating", "createdAt");
+
     @Inject
     private EntityManager em;
 
+    @Inject
+    private DashboardStatisticsCache statisticsCache;
+
+    @Inject
+    private TitleSuggestionIndex suggestionIndex;
+
+    @JpaTransactional
     public void save(MediaTitle mediaTitle) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-
             int currentYear = LocalDateTime.now().getYear();
             if (mediaTitle.getReleaseYear() != null && mediaTitle.getReleaseYear() > currentYear) {
                 throw new IllegalArgumentException("El año de lanzamiento no puede ser futuro");
@@ -35,11 +64,14 @@ public class MediaTitleService {
                 em.merge(mediaTitle);
             }
 
-            tx.commit();
+            em.flush();
+            Long id = mediaTitle.getMediaTitleId();
+            String titleName = mediaTitle.getTitleName();
+            AfterCommit.run(em, () -> {
+                suggestionIndex.put(id, titleName);
+                statisticsCache.invalidate();
+            });
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al guardar título multimedia", e);
         }
     }
@@ -52,17 +84,226 @@ public class MediaTitleService {
         return title;
     }
 
+    // Carga el título con el plan de la pantalla que lo va a mostrar (una sola consulta)
+    public MediaTitle buscarPorId(Long id, FetchPlan plan) {
+        MediaTitle title = em.find(MediaTitle.class, id,
+                Map.of(GraphSemantic.FETCH.getJpaHintName(), em.getEntityGraph(plan.getGraphName())));
+        if (title == null) {
+            throw new IllegalArgumentException("Título no encontrado");
+        }
+        return title;
+    }
+
     public List<MediaTitle> findAll() {
         return em.createQuery(
-                        "SELECT mt FROM MediaTitle mt ORDER BY mt.createdAt DESC", MediaTitle.class)
+                        "SELECT DISTINCT mt FROM MediaTitle mt ORDER BY mt.createdAt DESC", MediaTitle.class)
+                .setHint(GraphSemantic.FETCH.getJpaHintName(), em.getEntityGraph(FetchPlan.LIST_ROW.getGraphName()))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList();
+    }
+
+    // Búsqueda paginada del catálogo (todos los filtros se resuelven en SQL)
+    public List<MediaTitle> search(MediaTitleSearchCriteria criteria,
+                                   int first,
+                                   int pageSize,
+                                   String sortField,
+                                   boolean ascending) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<MediaTitle> root = cq.from(MediaTitle.class);
+
+        cq.multiselect(root.get("id"), posterCount(cb, cq, root))
+                .where(buildPredicates(cb, cq, root, criteria).toArray(new Predicate[0]));
+
+        if (sortField != null && SORTABLE_FIELDS.contains(sortField)) {
+            Path<?> sortPath = root.get(sortField);
+            cq.orderBy(ascending ? cb.asc(sortPath) : cb.desc(sortPath),
+                    ascending ? cb.asc(root.get("id")) : cb.desc(root.get("id")));
+        } else {
+            cq.orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+        }
+
+        return loadListRows(em.createQuery(cq)
+                .setFirstResult(Math.max(first, 0))
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    /**
+     * Paginación por keyset sobre el orden por defecto (createdAt DESC, id DESC):
+     * continúa después de la última fila vista sin recorrer el OFFSET.
+     */
+    public List<MediaTitle> searchAfter(MediaTitleSearchCriteria criteria,
+                                        LocalDateTime lastCreatedAt,
+                                        Long lastId,
+                                        int pageSize) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Object[]> cq = cb.createQuery(Object[].class);
+        Root<MediaTitle> root = cq.from(MediaTitle.class);
+
+        List<Predicate> predicates = buildPredicates(cb, cq, root, criteria);
+        if (lastCreatedAt != null && lastId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(root.<LocalDateTime>get("createdAt"), lastCreatedAt),
+                    cb.and(cb.equal(root.get("createdAt"), lastCreatedAt),
+                            cb.lessThan(root.<Long>get("id"), lastId))));
+        }
+
+        cq.multiselect(root.get("id"), posterCount(cb, cq, root))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("id")));
+
+        return loadListRows(em.createQuery(cq)
+                .setMaxResults(pageSize)
+                .getResultList());
+    }
+
+    public long count(MediaTitleSearchCriteria criteria) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<MediaTitle> root = cq.from(MediaTitle.class);
+
+        cq.select(cb.count(root)).where(buildPredicates(cb, cq, root, criteria).toArray(new Predicate[0]));
+        return em.createQuery(cq).getSingleResult();
+    }
+
+    /**
+     * Búsqueda de texto completo sobre titleName + synopsis (columna search_vector con índice GIN),
+     * ordenada por relevancia. La configuración es_unaccent ignora acentos y aplica stemming en español.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MediaTitle> fullTextSearch(MediaTitleSearchCriteria criteria, int first, int pageSize) {
+        Query query = em.createNativeQuery(
+                "SELECT mt.media_title_id, EXISTS (SELECT 1 FROM media_files mf " +
+                        "WHERE mf.media_title_id = mt.media_title_id AND mf.file_type = 'POSTER' AND mf.is_active) " +
+                        "FROM media_titles mt, websearch_to_tsquery('es_unaccent', :text) q " +
+                        "WHERE mt.search_vector @@ q" + fullTextFilters(criteria) +
+                        " ORDER BY ts_rank_cd(mt.search_vector, q) DESC, mt.media_title_id DESC");
+        bindFullTextParameters(query, criteria);
+        List<Object[]> rows = query.setFirstResult(Math.max(first, 0))
+                .setMaxResults(pageSize)
                 .getResultList();
+        return loadListRows(rows);
     }
 
+    public long countFullText(MediaTitleSearchCriteria criteria) {
+        Query query = em.createNativeQuery(
+                "SELECT COUNT(*) FROM media_titles mt, websearch_to_tsquery('es_unaccent', :text) q " +
+                        "WHERE mt.search_vector @@ q" + fullTextFilters(criteria));
+        bindFullTextParameters(query, criteria);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private static String fullTextFilters(MediaTitleSearchCriteria criteria) {
+        StringBuilder sql = new StringBuilder();
+        if (criteria.getTitleType() != null) {
+            sql.append(" AND mt.title_type = :titleType");
+        }
+        if (criteria.getReleaseYear() != null) {
+            sql.append(" AND mt.release_year = :releaseYear");
+        }
+        if (criteria.getGenreId() != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM media_title_genres mtg " +
+                    "WHERE mtg.media_title_id = mt.media_title_id AND mtg.movie_genre_id = :genreId)");
+        }
+        return sql.toString();
+    }
+
+    private static void bindFullTextParameters(Query query, MediaTitleSearchCriteria criteria) {
+        query.setParameter("text", criteria.getTitleName().trim());
+        if (criteria.getTitleType() != null) {
+            query.setParameter("titleType", criteria.getTitleType().name());
+        }
+        if (criteria.getReleaseYear() != null) {
+            query.setParameter("releaseYear", criteria.getReleaseYear());
+        }
+        if (criteria.getGenreId() != null) {
+            query.setParameter("genreId", criteria.getGenreId());
+        }
+    }
+
+    /**
+     * Segunda consulta de la página: carga las entidades con el plan LIST_ROW (géneros incluidos)
+     * y les fija la bandera de póster calculada en la primera, conservando el orden recibido.
+     * Filas esperadas: [id, nº de pósters activos o boolean].
+     */
+    private List<MediaTitle> loadListRows(List<Object[]> idRows) {
+        if (idRows.isEmpty()) return new ArrayList<>();
+
+        Map<Long, Boolean> posterFlags = new LinkedHashMap<>();
+        for (Object[] row : idRows) {
+            Object flag = row[1];
+            posterFlags.put(((Number) row[0]).longValue(),
+                    flag instanceof Number ? ((Number) flag).longValue() > 0 : Boolean.TRUE.equals(flag));
+        }
+
+        Map<Long, MediaTitle> byId = new HashMap<>();
+        em.createQuery("SELECT DISTINCT mt FROM MediaTitle mt WHERE mt.id IN :ids", MediaTitle.class)
+                .setParameter("ids", posterFlags.keySet())
+                .setHint(GraphSemantic.FETCH.getJpaHintName(), em.getEntityGraph(FetchPlan.LIST_ROW.getGraphName()))
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .getResultList()
+                .forEach(mt -> byId.put(mt.getMediaTitleId(), mt));
+
+        List<MediaTitle> page = new ArrayList<>(posterFlags.size());
+        posterFlags.forEach((id, hasPoster) -> {
+            MediaTitle mt = byId.get(id);
+            if (mt != null) {
+                mt.setPosterFlag(hasPoster);
+                page.add(mt);
+            }
+        });
+        return page;
+    }
+
+    private static Subquery<Long> posterCount(CriteriaBuilder cb, CriteriaQuery<?> cq, Root<MediaTitle> root) {
+        Subquery<Long> sub = cq.subquery(Long.class);
+        Root<MediaFile> mf = sub.from(MediaFile.class);
+        sub.select(cb.count(mf))
+                .where(cb.equal(mf.get("mediaTitle"), root),
+                        cb.equal(mf.get("fileType"), MediaFile.FileType.POSTER),
+                        cb.isTrue(mf.<Boolean>get("isActive")));
+        return sub;
+    }
+
+    private List<Predicate> buildPredicates(CriteriaBuilder cb,
+                                            CriteriaQuery<?> cq,
+                                            Root<MediaTitle> root,
+                                            MediaTitleSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria == null) return predicates;
+
+        if (criteria.hasTitleName()) {
+            String pattern = "%" + escapeLike(criteria.getTitleName().trim().toLowerCase(Locale.ROOT)) + "%";
+            predicates.add(cb.like(cb.lower(root.<String>get("titleName")), pattern, '\\'));
+        }
+        if (criteria.getTitleType() != null) {
+            predicates.add(cb.equal(root.get("titleType"), criteria.getTitleType()));
+        }
+        if (criteria.getReleaseYear() != null) {
+            predicates.add(cb.equal(root.get("releaseYear"), criteria.getReleaseYear()));
+        }
+        if (criteria.getGenreId() != null) {
+            // EXISTS en lugar de JOIN para no duplicar filas ni necesitar DISTINCT
+            Subquery<Long> sub = cq.subquery(Long.class);
+            Root<MediaTitle> correlated = sub.correlate(root);
+            Join<MediaTitle, MovieGenre> genre = correlated.join("genres");
+            sub.select(genre.<Long>get("id"))
+                    .where(cb.equal(genre.get("id"), criteria.getGenreId()));
+            predicates.add(cb.exists(sub));
+        }
+        return predicates;
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    @JpaTransactional
     public void editar(MediaTitle mediaTitle) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-
             // Verificar que el registro existe antes de actualizar
             MediaTitle existente = em.find(MediaTitle.class, mediaTitle.getMediaTitleId());
             if (existente == null) {
@@ -71,20 +312,30 @@ public class MediaTitleService {
 
             em.merge(mediaTitle);
 
-            tx.commit();
+            em.flush();
+            Long id = mediaTitle.getMediaTitleId();
+            String titleName = mediaTitle.getTitleName();
+            AfterCommit.run(em, () -> {
+                suggestionIndex.put(id, titleName);
+                statisticsCache.invalidate();
+            });
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al actualizar título multimedia", e);
         }
     }
 
+    @JpaTransactional
     public void delete(MediaTitle mediaTitle) {
 
         MediaTitle managed = em.find(MediaTitle.class, mediaTitle.getMediaTitleId());
         if (managed != null) {
             em.remove(managed);
+            em.flush();
+            Long id = managed.getMediaTitleId();
+            AfterCommit.run(em, () -> {
+                suggestionIndex.remove(id);
+                statisticsCache.invalidate();
+            });
         } else {
             throw new IllegalArgumentException("El registro no existe o ya fue eliminado.");
         }
@@ -1,24 +1,30 @@
 package com.catalogomultimedia.service;
 
+import com.catalogomultimedia.config.AfterCommit;
+import com.catalogomultimedia.config.JpaTransactional;
+import com.catalogomultimedia.dtos.GenreSummaryDTO;
 import com.catalogomultimedia.entity.MovieGenre;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.QueryHints;
+import java.util.ArrayList;
 import java.util.List;
 
 @ApplicationScoped
+@JpaTransactional(readOnly = true)
 public class MovieGenreService {
 
     @Inject
     private EntityManager em;
 
+    @Inject
+    private DashboardStatisticsCache statisticsCache;
+
+    @JpaTransactional
     public void save(MovieGenre genre) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-
             // Si es un nuevo registro
             if (genre.getMovieGenreId() == null) {
                 TypedQuery<Long> query = em.createQuery(
@@ -36,32 +42,23 @@ public class MovieGenreService {
                 em.merge(genre);
             }
 
-            tx.commit();
+            em.flush();
+            AfterCommit.run(em, statisticsCache::invalidate);
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al guardar género", e);
         }
     }
 
 
     public MovieGenre getMovieGenreId(Long genreId) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
             MovieGenre genre = em.find(MovieGenre.class, genreId);
-            tx.commit();
-
             if (genre == null) {
                 throw new IllegalArgumentException("Género no encontrado con ID: " + genreId);
             }
 
             return genre;
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al obtener el género con ID: " + genreId, e);
         }
     }
@@ -75,30 +72,50 @@ public class MovieGenreService {
 
     public List<MovieGenre> listAll() {
         return em.createQuery("SELECT g FROM MovieGenre g ORDER BY g.genreName", MovieGenre.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
                 .getResultList();
     }
 
+    // Listado de géneros con su número de títulos (leído de genre_usage, coste proporcional a los géneros)
+    @SuppressWarnings("unchecked")
+    public List<GenreSummaryDTO> listWithTitleCounts() {
+        List<Object[]> rows = em.createNativeQuery(
+                        "SELECT g.movie_genre_id, g.genre_name, COALESCE(u.title_count, 0) " +
+                                "FROM movie_genres g LEFT JOIN genre_usage u ON u.movie_genre_id = g.movie_genre_id " +
+                                "ORDER BY g.genre_name")
+                .getResultList();
+        List<GenreSummaryDTO> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            result.add(new GenreSummaryDTO(((Number) row[0]).longValue(), (String) row[1],
+                    ((Number) row[2]).longValue()));
+        }
+        return result;
+    }
+
+    public long countTitles(Long genreId) {
+        return em.createQuery(
+                        "SELECT COUNT(mt) FROM MediaTitle mt JOIN mt.genres g WHERE g.id = :genreId", Long.class)
+                .setParameter("genreId", genreId)
+                .getSingleResult();
+    }
+
+    @JpaTransactional
     public void delete(Long id) {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-
             MovieGenre genre = em.find(MovieGenre.class, id);
             if (genre == null) {
                 throw new IllegalArgumentException("Género no encontrado");
             }
 
-            if (!genre.getMediaTitles().isEmpty()) {
+            if (countTitles(id) > 0) {
                 throw new IllegalArgumentException(
                         "No se puede eliminar el género porque tiene títulos asociados");
             }
 
             em.remove(genre);
-            tx.commit();
+            em.flush();
+            AfterCommit.run(em, statisticsCache::invalidate);
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al eliminar género", e);
         }
     }
@@ -109,11 +126,23 @@ public class MovieGenreService {
     }
 
     public List<Object[]> buscarGenerosMasUsados() {
-        TypedQuery<Object[]> query = em.createQuery(
-                "SELECT g.genreName, COUNT(mt) FROM MovieGenre g " +
-                        "JOIN g.mediaTitles mt GROUP BY g.genreName ORDER BY COUNT(mt) DESC",
-                Object[].class);
-        return query.getResultList();
+        return buscarGenerosMasUsados(Integer.MAX_VALUE);
+    }
+
+    // Top-N desde la tabla genre_usage (índice por title_count), sin agrupar media_title_genres
+    @SuppressWarnings("unchecked")
+    public List<Object[]> buscarGenerosMasUsados(int limit) {
+        List<Object[]> rows = em.createNativeQuery(
+                        "SELECT g.genre_name, u.title_count FROM genre_usage u " +
+                                "JOIN movie_genres g ON g.movie_genre_id = u.movie_genre_id " +
+                                "WHERE u.title_count > 0 " +
+                                "ORDER BY u.title_count DESC, u.movie_genre_id")
+                .setMaxResults(limit)
+                .getResultList();
+        for (Object[] row : rows) {
+            row[1] = ((Number) row[1]).longValue();
+        }
+        return rows;
     }
 
     public MovieGenre findById(Long genreId) {
@@ -125,18 +154,12 @@ public class MovieGenreService {
     }
 
     public List<MovieGenre> findAll() {
-        EntityTransaction tx = em.getTransaction();
         try {
-            tx.begin();
-            List<MovieGenre> genres = em.createQuery(
+            return em.createQuery(
                             "SELECT g FROM MovieGenre g ORDER BY g.genreName", MovieGenre.class)
+                    .setHint(QueryHints.HINT_CACHEABLE, true)
                     .getResultList();
-            tx.commit();
-            return genres;
         } catch (Exception e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
             throw new RuntimeException("Error al listar los géneros", e);
         }
     }
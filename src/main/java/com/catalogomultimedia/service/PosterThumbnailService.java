@@ -0,0 +1,348 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.entity.MediaFile;
+import com.catalogomultimedia.entity.MediaTitle;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.hibernate.Session;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Genera en segundo plano miniaturas JPEG de 80, 240 y 600 px de ancho de cada póster,
+ * las guarda junto al original ({nombre}_w240.jpg) y las anota en MediaFile y MediaTitle.
+ * Al arrancar encola los pósters que aún no tienen miniaturas.
+ */
+@ApplicationScoped
+public class PosterThumbnailService {
+
+    static final int SMALL = 80;
+    static final int MEDIUM = 240;
+    static final int LARGE = 600;
+    private static final int[] WIDTHS = {SMALL, MEDIUM, LARGE};
+    private static final float JPEG_QUALITY = 0.85f;
+    // Pósters pendientes que se encolan al arrancar
+    private static final int BACKFILL_LIMIT = 1000;
+
+    private ThreadPoolExecutor workers;
+    // Evita encolar dos veces el mismo archivo
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @PostConstruct
+    void init() {
+        int threads = Integer.parseInt(System.getProperty("THUMBNAIL_WORKERS", "2"));
+        int queueSize = Integer.parseInt(System.getProperty("THUMBNAIL_QUEUE_SIZE", "500"));
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+            Thread t = new Thread(r, "poster-thumbnail-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        backfill();
+    }
+
+    /**
+     * Encola los pósters más recientes que aún no tienen miniaturas (al arrancar y tras una importación)
+     */
+    public void backfill() {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<Long> pending = em.createQuery(
+                            "SELECT mf.id FROM MediaFile mf " +
+                                    "WHERE mf.fileType = :type AND mf.isActive = true AND mf.thumbnailSmallUrl IS NULL " +
+                                    "ORDER BY mf.id DESC", Long.class)
+                    .setParameter("type", MediaFile.FileType.POSTER)
+                    .setMaxResults(BACKFILL_LIMIT)
+                    .getResultList();
+            pending.forEach(this::enqueue);
+            if (!pending.isEmpty()) {
+                System.out.println("[PosterThumbnailService] " + pending.size() + " pósters sin miniaturas encolados");
+            }
+        } catch (Exception e) {
+            System.out.println("[PosterThumbnailService] No se pudieron buscar pósters pendientes: " + e.getMessage());
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Encola la generación de miniaturas de un MediaFile ya persistido; no bloquea
+     */
+    public void enqueue(Long mediaFileId) {
+        if (mediaFileId == null || !queued.add(mediaFileId)) return;
+        try {
+            workers.execute(() -> {
+                try {
+                    generate(mediaFileId);
+                } finally {
+                    queued.remove(mediaFileId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Cola llena: se recogerá en el siguiente arranque
+            queued.remove(mediaFileId);
+            System.out.println("[PosterThumbnailService] Cola llena, se omite el archivo " + mediaFileId);
+        }
+    }
+
+    /**
+     * Encola los pósters persistidos del título que aún no tienen miniaturas
+     */
+    public void enqueuePending(MediaTitle title) {
+        if (title == null || title.getMediaFiles() == null) return;
+        for (MediaFile mf : title.getMediaFiles()) {
+            if (mf.isPoster() && mf.getMediaFileId() != null && !mf.hasThumbnails()) {
+                enqueue(mf.getMediaFileId());
+            }
+        }
+    }
+
+    public long getGeneratedCount() {
+        return generated.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public int getQueueSize() {
+        return workers.getQueue().size();
+    }
+
+    /* -------------------- Worker -------------------- */
+
+    private void generate(Long mediaFileId) {
+        long start = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        try {
+            MediaFile mf = em.find(MediaFile.class, mediaFileId);
+            if (mf == null || !mf.isPoster() || mf.hasThumbnails()) return;
+            Long titleId = mf.getMediaTitle().getMediaTitleId();
+
+            // Mismo contenido ya procesado (blob deduplicado): se reutilizan sus miniaturas
+            String[] urls = mf.getContentSha256() == null ? null : thumbnailsOfSameContent(em, mf);
+            if (urls == null) {
+                urls = render(storageBackend.blobNameFromUrl(mf.getBlobUrl()));
+            }
+
+            saveUrls(em, mediaFileId, titleId, urls);
+            emf.getCache().evict(MediaTitle.class, titleId);
+            generated.incrementAndGet();
+
+            System.out.printf("[PosterThumbnailService] Miniaturas del archivo %d en %d ms%n",
+                    mediaFileId, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            System.out.println("[PosterThumbnailService] Error con el archivo " + mediaFileId + ": " + e.getMessage());
+        } finally {
+            em.close();
+        }
+    }
+
+    private static String[] thumbnailsOfSameContent(EntityManager em, MediaFile mf) {
+        List<Object[]> rows = em.createQuery(
+                        "SELECT o.thumbnailSmallUrl, o.thumbnailMediumUrl, o.thumbnailLargeUrl FROM MediaFile o " +
+                                "WHERE o.contentSha256 = :hash AND o.thumbnailSmallUrl IS NOT NULL", Object[].class)
+                .setParameter("hash", mf.getContentSha256())
+                .setMaxResults(1)
+                .getResultList();
+        if (rows.isEmpty()) return null;
+        Object[] row = rows.get(0);
+        return new String[]{(String) row[0], (String) row[1], (String) row[2]};
+    }
+
+    /**
+     * Decodifica el original (submuestreado si es mucho mayor que la miniatura grande)
+     * y sube una versión JPEG por cada ancho
+     */
+    private String[] render(String blobName) throws IOException {
+        BufferedImage source;
+        try (InputStream in = storageBackend.openStream(blobName)) {
+            source = decode(in);
+        }
+
+        String base = blobName.contains(".") ? blobName.substring(0, blobName.lastIndexOf('.')) : blobName;
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("fileType", "POSTER");
+        metadata.put("derivedFrom", blobName);
+
+        String[] urls = new String[WIDTHS.length];
+        for (int i = 0; i < WIDTHS.length; i++) {
+            byte[] jpeg = encodeJpeg(scaleToWidth(source, WIDTHS[i]));
+            MediaFileDTO dto = storageBackend.putBlob(base + "_w" + WIDTHS[i] + ".jpg", "image/jpeg",
+                    new ByteArrayInputStream(jpeg), jpeg.length, metadata);
+            urls[i] = dto.getBlobUrl();
+        }
+        return urls;
+    }
+
+    private static BufferedImage decode(InputStream in) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) throw new IOException("Formato de imagen no soportado");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, reader.getWidth(0) / (LARGE * 2));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Reducción por mitades hasta acercarse al ancho final: calidad similar a bicúbica y más rápida
+    private static BufferedImage scaleToWidth(BufferedImage source, int width) {
+        BufferedImage current = toRgb(source);
+        if (current.getWidth() <= width) return current;
+
+        while (current.getWidth() / 2 >= width) {
+            current = resize(current, current.getWidth() / 2,
+                    Math.max(1, current.getHeight() / 2));
+        }
+        int height = Math.max(1, Math.round(current.getHeight() * (width / (float) current.getWidth())));
+        return resize(current, width, height);
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    // JPEG no admite transparencia: los PNG se aplanan sobre blanco
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) return source;
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, source.getWidth(), source.getHeight());
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Las columnas de miniaturas no son actualizables desde JPA (ver MediaFile/MediaTitle): se
+     * escriben por JDBC y después se expulsa el título de la caché de segundo nivel
+     */
+    private static void saveUrls(EntityManager em, Long mediaFileId, Long titleId, String[] urls) {
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE media_files SET thumbnail_small_url = ?, thumbnail_medium_url = ?, " +
+                                "thumbnail_large_url = ? WHERE media_file_id = ?")) {
+                    ps.setString(1, urls[0]);
+                    ps.setString(2, urls[1]);
+                    ps.setString(3, urls[2]);
+                    ps.setLong(4, mediaFileId);
+                    ps.executeUpdate();
+                }
+                // Se muestra la miniatura del póster activo más reciente
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "UPDATE media_titles SET poster_thumbnail_url = ? " +
+                                "WHERE media_title_id = ? AND NOT EXISTS (" +
+                                "SELECT 1 FROM media_files f WHERE f.media_title_id = ? AND f.file_type = 'POSTER' " +
+                                "AND f.is_active = true AND f.thumbnail_small_url IS NOT NULL AND f.media_file_id > ?)")) {
+                    ps.setString(1, urls[0]);
+                    ps.setLong(2, titleId);
+                    ps.setLong(3, titleId);
+                    ps.setLong(4, mediaFileId);
+                    ps.executeUpdate();
+                }
+            });
+            tx.commit();
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.catalogomultimedia.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emite URLs de lectura firmadas al mostrar los archivos, sin persistir firmas.
+ * El tiempo se divide en tramos de SIGNED_URL_TTL_MINUTES: dentro de un tramo todas las
+ * peticiones reciben la misma URL (una firma por archivo y tramo, y el navegador la cachea).
+ * Cada URL caduca SIGNED_URL_RENEW_MARGIN_MINUTES después del fin de su tramo.
+ */
+@ApplicationScoped
+public class SignedUrlService {
+
+    // Límite de entradas antes de purgar las de tramos pasados
+    private static final int MAX_ENTRIES = 20_000;
+
+    private final Map<Key, SignedUrl> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private long ttlSeconds;
+    private long marginSeconds;
+
+    @Inject
+    private StorageBackend storageBackend;
+
+    @PostConstruct
+    void init() {
+        ttlSeconds = Long.parseLong(System.getProperty("SIGNED_URL_TTL_MINUTES", "15")) * 60;
+        marginSeconds = Long.parseLong(System.getProperty("SIGNED_URL_RENEW_MARGIN_MINUTES", "2")) * 60;
+    }
+
+    /**
+     * URL firmada para mostrar el archivo en el navegador
+     */
+    public String inlineUrl(String blobUrl) {
+        return signedUrl(blobUrl, true);
+    }
+
+    /**
+     * URL firmada que fuerza la descarga
+     */
+    public String downloadUrl(String blobUrl) {
+        return signedUrl(blobUrl, false);
+    }
+
+    /**
+     * blobUrl es la URL guardada en MediaFile (sin firma; las antiguas con SAS también valen)
+     */
+    public String signedUrl(String blobUrl, boolean inline) {
+        if (blobUrl == null || blobUrl.isBlank()) return null;
+        String blobName = storageBackend.blobNameFromUrl(blobUrl);
+
+        long now = Instant.now().getEpochSecond();
+        long bucketEnd = (now / ttlSeconds + 1) * ttlSeconds;
+
+        Key key = new Key(blobName, inline);
+        SignedUrl cached = cache.get(key);
+        if (cached != null && cached.bucketEnd == bucketEnd) {
+            hits.incrementAndGet();
+            return cached.url;
+        }
+
+        misses.incrementAndGet();
+        OffsetDateTime expiresAt = OffsetDateTime.ofInstant(
+                Instant.ofEpochSecond(bucketEnd + marginSeconds), ZoneOffset.UTC);
+        String url = storageBackend.generateReadUrl(blobName, expiresAt, inline);
+
+        if (cache.size() >= MAX_ENTRIES) {
+            cache.values().removeIf(s -> s.bucketEnd < bucketEnd);
+            if (cache.size() >= MAX_ENTRIES) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new SignedUrl(url, bucketEnd));
+        return url;
+    }
+
+    /**
+     * Olvida las firmas de un archivo (p. ej. al eliminarlo)
+     */
+    public void evict(String blobUrl) {
+        if (blobUrl == null) return;
+        String blobName = storageBackend.blobNameFromUrl(blobUrl);
+        cache.remove(new Key(blobName, true));
+        cache.remove(new Key(blobName, false));
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static final class Key {
+        private final String blobName;
+        private final boolean inline;
+
+        private Key(String blobName, boolean inline) {
+            this.blobName = blobName;
+            this.inline = inline;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return inline == that.inline && blobName.equals(that.blobName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(blobName, inline);
+        }
+    }
+
+    private static final class SignedUrl {
+        private final String url;
+        private final long bucketEnd;
+
+        private SignedUrl(String url, long bucketEnd) {
+            this.url = url;
+            this.bucketEnd = bucketEnd;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.BlobPageDTO;
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.enums.FileType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Almacenamiento de los archivos del catálogo (pósters y fichas técnicas).
+ * La implementación se elige con STORAGE_BACKEND (ver StorageBackendProducer).
+ */
+public interface StorageBackend {
+
+    /**
+     * Guarda el archivo con la estructura posters/{title_name}/{timestamp}.jpg
+     * o fichas/{title_name}/{timestamp}.pdf
+     */
+    MediaFileDTO uploadCatalogFile(FileType fileType,
+                                   String titleName,
+                                   String originalFileName,
+                                   String contentType,
+                                   InputStream data,
+                                   long sizeBytes,
+                                   String uploadedBy);
+
+    /**
+     * Guarda un archivo con nombre fijo, p. ej. derivados junto al original (miniaturas)
+     */
+    MediaFileDTO putBlob(String blobPath,
+                         String contentType,
+                         InputStream data,
+                         long sizeBytes,
+                         Map<String, String> metadata);
+
+    Optional<MediaFileDTO> getBlob(String blobName);
+
+    /**
+     * Recorre los archivos (todos o por prefijo) sin cargarlos todos en memoria
+     */
+    Stream<MediaFileDTO> streamBlobs(String prefix);
+
+    BlobPageDTO listBlobsPage(String prefix, String continuationToken, int pageSize);
+
+    boolean deleteBlob(String blobName);
+
+    /**
+     * URL de lectura firmada que caduca en expiresAt (mejor pedirla a SignedUrlService, que la reutiliza)
+     */
+    String generateReadUrl(String blobName, OffsetDateTime expiresAt, boolean inline);
+
+    /**
+     * Nombre del archivo a partir de la URL guardada en MediaFile.blobUrl (admite URLs con firma antigua)
+     */
+    String blobNameFromUrl(String url);
+
+    InputStream openStream(String blobName) throws IOException;
+
+    /**
+     * Escribe length bytes del archivo desde offset en out (length < 0: hasta el final)
+     */
+    void download(String blobName, long offset, long length, OutputStream out) throws IOException;
+
+    default List<MediaFileDTO> listBlobs(String prefix) {
+        try (Stream<MediaFileDTO> blobs = streamBlobs(prefix)) {
+            return blobs.collect(Collectors.toList());
+        }
+    }
+
+    default List<MediaFileDTO> listAllBlobs() {
+        return listBlobs(null);
+    }
+}
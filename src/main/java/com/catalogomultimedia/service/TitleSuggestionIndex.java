@@ -0,0 +1,299 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.config.DataSourceRoute;
+import com.catalogomultimedia.dtos.TitleSuggestionDTO;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.Initialized;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de trigramas en memoria sobre MediaTitle.titleName para el autocompletado.
+ * Cada palabra se indexa con dos espacios delante (como pg_trgm), así los prefijos
+ * de 1 y 2 letras también tienen trigrama propio. Se carga al arrancar y se mantiene
+ * desde MediaTitleService (save, editar, delete).
+ *
+ * Cada búsqueda recorre la lista de IDs más corta de sus trigramas: se exige al menos una palabra de
+ * MIN_QUERY_LENGTH caracteres, porque con solo 1 o 2 letras esa lista abarca casi todo el catálogo.
+ */
+@ApplicationScoped
+public class TitleSuggestionIndex {
+
+    // ' ' + a-z + 0-9
+    private static final int ALPHABET = 37;
+    // Caracteres de la palabra más larga de la consulta (autocompletado y /api/titles/suggest)
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<Long, String> normalized = new HashMap<>();
+    private final Map<Integer, Postings> postings = new HashMap<>();
+
+    private int maxTitles;
+    private boolean capacityWarned;
+
+    @Inject
+    private EntityManagerFactory emf;
+
+    void onStart(@Observes @Initialized(ApplicationScoped.class) Object init) {
+        // Un fallo de la BD al arrancar no debe tumbar el despliegue: el índice empieza vacío
+        try {
+            reload();
+        } catch (Exception e) {
+            clear();
+            System.out.println("[TitleSuggestionIndex] Error cargando el índice, se inicia vacío: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo desde la BD
+     */
+    public void reload() {
+        maxTitles = Integer.parseInt(System.getProperty("SUGGEST_INDEX_MAX_TITLES", "500000"));
+        long start = System.nanoTime();
+
+        // Del primario, como toda recarga de caché (se llama al terminar una importación)
+        DataSourceRoute previousRoute = DataSourceRoute.set(DataSourceRoute.PRIMARY);
+        EntityManager em = emf.createEntityManager();
+        lock.writeLock().lock();
+        try {
+            clearInternal();
+            em.createQuery("SELECT mt.id, mt.titleName FROM MediaTitle mt", Object[].class)
+                    .getResultStream()
+                    .forEach(row -> putInternal((Long) row[0], (String) row[1]));
+        } finally {
+            lock.writeLock().unlock();
+            em.close();
+            DataSourceRoute.set(previousRoute);
+        }
+
+        System.out.printf("[TitleSuggestionIndex] %d títulos, %d trigramas indexados en %d ms%n",
+                titles.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void put(Long id, String titleName) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            putInternal(id, titleName);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (id == null) return;
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Títulos cuyas palabras empiezan por cada palabra escrita (sin distinguir acentos ni mayúsculas)
+     */
+    public List<TitleSuggestionDTO> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) return List.of();
+        String[] tokens = q.split(" ");
+        if (Arrays.stream(tokens).mapToInt(String::length).max().orElse(0) < MIN_QUERY_LENGTH) return List.of();
+
+        Set<Integer> keys = new LinkedHashSet<>();
+        for (String token : tokens) {
+            addTrigrams("  " + token, keys);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(keys.size());
+            for (Integer key : keys) {
+                Postings p = postings.get(key);
+                if (p == null) return List.of();
+                lists.add(p);
+            }
+            lists.sort(Comparator.comparingInt(p -> p.size));
+
+            // Prefijo exacto primero, luego los más cortos. Se ordena mientras se recorre con un montículo
+            // de tamaño limit (el peor en la cabeza): ninguna coincidencia queda fuera por su posición en la lista
+            Comparator<Long> ranking = Comparator.<Long>comparingInt(id -> normalized.get(id).startsWith(q) ? 0 : 1)
+                    .thenComparingInt(id -> normalized.get(id).length())
+                    .thenComparing(id -> normalized.get(id));
+            PriorityQueue<Long> best = new PriorityQueue<>(Math.min(limit, 64) + 1, ranking.reversed());
+            Postings smallest = lists.get(0);
+            for (int i = 0; i < smallest.size; i++) {
+                long id = smallest.ids[i];
+                if (!containedInAll(lists, id) || !matchesTokens(normalized.get(id), tokens)) continue;
+                if (best.size() < limit) {
+                    best.add(id);
+                } else if (ranking.compare(id, best.peek()) < 0) {
+                    best.poll();
+                    best.add(id);
+                }
+            }
+
+            return best.stream()
+                    .sorted(ranking)
+                    .map(id -> new TitleSuggestionDTO(id, titles.get(id)))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearInternal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return titles.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* -------------------- Helpers -------------------- */
+
+    private void clearInternal() {
+        titles.clear();
+        normalized.clear();
+        postings.clear();
+        capacityWarned = false;
+    }
+
+    private void putInternal(Long id, String titleName) {
+        if (titleName == null) return;
+        if (titles.size() >= maxTitles) {
+            if (!capacityWarned) {
+                System.out.println("[TitleSuggestionIndex] Límite de " + maxTitles + " títulos alcanzado, no se indexan más");
+                capacityWarned = true;
+            }
+            return;
+        }
+        String norm = normalize(titleName);
+        titles.put(id, titleName);
+        normalized.put(id, norm);
+        for (Integer key : trigramsOf(norm)) {
+            postings.computeIfAbsent(key, k -> new Postings()).add(id);
+        }
+    }
+
+    private void removeInternal(Long id) {
+        String norm = normalized.remove(id);
+        titles.remove(id);
+        if (norm == null) return;
+        for (Integer key : trigramsOf(norm)) {
+            Postings p = postings.get(key);
+            if (p != null && p.remove(id) && p.size == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static Set<Integer> trigramsOf(String norm) {
+        Set<Integer> keys = new LinkedHashSet<>();
+        if (norm.isEmpty()) return keys;
+        for (String word : norm.split(" ")) {
+            addTrigrams("  " + word + " ", keys);
+        }
+        return keys;
+    }
+
+    private static void addTrigrams(String padded, Set<Integer> keys) {
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            keys.add((code(padded.charAt(i)) * ALPHABET + code(padded.charAt(i + 1))) * ALPHABET
+                    + code(padded.charAt(i + 2)));
+        }
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a' + 1;
+        if (c >= '0' && c <= '9') return c - '0' + 27;
+        return 0;
+    }
+
+    private static boolean containedInAll(List<Postings> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) return false;
+        }
+        return true;
+    }
+
+    // Los trigramas pueden dar falsos positivos: cada palabra buscada debe ser prefijo de alguna palabra
+    private static boolean matchesTokens(String norm, String[] tokens) {
+        if (norm == null) return false;
+        String spaced = " " + norm;
+        for (String token : tokens) {
+            if (!spaced.contains(" " + token)) return false;
+        }
+        return true;
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+    }
+
+    /**
+     * Lista ordenada de IDs en un long[] (8 bytes por entrada, sin objetos Long)
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) return;
+            pos = -pos - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) return false;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            if (size > 0 && size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.catalogomultimedia.service;
+
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.enums.FileType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Estado de una subida en segundo plano. El bean recibe la instancia como "handle"
+ * en cuanto se encola y la consulta de nuevo al completar.
+ */
+public class UploadJob {
+
+    public enum Status {
+        PENDING, UPLOADING, DONE, FAILED
+    }
+
+    private final String jobId = UUID.randomUUID().toString();
+    private final Long mediaTitleId;
+    private final FileType fileType;
+    private final String fileName;
+    private final long totalBytes;
+    private final String contentSha256;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.PENDING;
+    private volatile long bytesSent;
+    private volatile MediaFileDTO result;
+    private volatile String error;
+    // Contenido ya subido antes: se reutilizó el blob existente
+    private volatile boolean deduplicated;
+
+    public UploadJob(Long mediaTitleId, FileType fileType, String fileName, long totalBytes, String contentSha256) {
+        this.mediaTitleId = mediaTitleId;
+        this.fileType = fileType;
+        this.fileName = fileName;
+        this.totalBytes = totalBytes;
+        this.contentSha256 = contentSha256;
+    }
+
+    public int getPercent() {
+        if (status == Status.DONE) return 100;
+        return totalBytes <= 0 ? 0 : (int) Math.min(99, bytesSent * 100 / totalBytes);
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    /**
+     * Mensaje para el canal websocket (se serializa a JSON)
+     */
+    public Map<String, Object> toMessage() {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("jobId", jobId);
+        message.put("fileName", fileName);
+        message.put("status", status.name());
+        message.put("percent", getPercent());
+        message.put("deduplicated", deduplicated);
+        if (error != null) {
+            message.put("error", error);
+        }
+        return message;
+    }
+
+    // Getters/Setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Long getMediaTitleId() {
+        return mediaTitleId;
+    }
+
+    public FileType getFileType() {
+        return fileType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    void setBytesSent(long bytesSent) {
+        this.bytesSent = bytesSent;
+    }
+
+    public MediaFileDTO getResult() {
+        return result;
+    }
+
+    void setResult(MediaFileDTO result) {
+        this.result = result;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    public boolean isDeduplicated() {
+        return deduplicated;
+    }
+
+    void setDeduplicated(boolean deduplicated) {
+        this.deduplicated = deduplicated;
+    }
+}
@@ -0,0 +1,71 @@
+package com.catalogomultimedia.servlet;
+
+import com.catalogomultimedia.dtos.ImportReportDTO;
+import com.catalogomultimedia.service.BulkImportService;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+
+/**
+ * Importación masiva: POST /_admin/import?format=csv|json[&uploadedBy=...] con el archivo como cuerpo.
+ * Ej.: curl --data-binary @titulos.csv -H "Content-Type: text/csv" http://host/app/_admin/import
+ */
+@WebServlet("/_admin/import")
+public class BulkImportServlet extends HttpServlet {
+
+    @Inject
+    BulkImportService bulkImportService;
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        BulkImportService.Format format = resolveFormat(req);
+        String uploadedBy = req.getParameter("uploadedBy") != null ? req.getParameter("uploadedBy") : "import";
+
+        ImportReportDTO report;
+        try (InputStream in = req.getInputStream()) {
+            report = bulkImportService.importTitles(in, format, uploadedBy);
+        } catch (IllegalStateException e) {
+            resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+            return;
+        } catch (IOException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        JsonObjectBuilder json = Json.createObjectBuilder()
+                .add("rowsRead", report.getRowsRead())
+                .add("rowsImported", report.getRowsImported())
+                .add("rowsRejected", report.getRowsRejected())
+                .add("genresCreated", report.getGenresCreated())
+                .add("elapsedMillis", report.getElapsedMillis())
+                .add("rowsPerSecond", Math.round(report.getRowsPerSecond()));
+        if (report.getRejectsFile() != null) {
+            json.add("rejectsFile", report.getRejectsFile());
+        }
+
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        try (PrintWriter out = resp.getWriter()) {
+            out.print(json.build().toString());
+        }
+    }
+
+    private static BulkImportService.Format resolveFormat(HttpServletRequest req) {
+        String format = req.getParameter("format");
+        if (format == null) {
+            String contentType = req.getContentType();
+            return contentType != null && contentType.contains("json")
+                    ? BulkImportService.Format.JSON
+                    : BulkImportService.Format.CSV;
+        }
+        return "json".equalsIgnoreCase(format) ? BulkImportService.Format.JSON : BulkImportService.Format.CSV;
+    }
+}
@@ -0,0 +1,58 @@
+package com.catalogomultimedia.servlet;
+
+import com.catalogomultimedia.dtos.MediaFileDTO;
+import com.catalogomultimedia.service.LocalFileStorageService;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Sirve las URLs firmadas del almacenamiento local: GET /storage/{nombre}?exp=...&sig=...
+ */
+@WebServlet("/storage/*")
+public class LocalStorageServlet extends HttpServlet {
+
+    @Inject
+    LocalFileStorageService storage;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String path = req.getPathInfo();
+        if (path == null || path.length() < 2) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String blobName = path.substring(1);
+
+        if (!"local".equalsIgnoreCase(System.getProperty("STORAGE_BACKEND"))
+                || !storage.verifyReadUrl(blobName, req.getParameter("exp"), req.getParameter("disp"), req.getParameter("sig"))) {
+            resp.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        Optional<MediaFileDTO> blob;
+        try {
+            blob = storage.getBlob(blobName);
+        } catch (IllegalArgumentException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (blob.isEmpty()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        MediaFileDTO dto = blob.get();
+        resp.setContentType(dto.getContentType());
+        resp.setContentLengthLong(dto.getSizeBytes());
+        resp.setHeader("ETag", dto.getEtag());
+        resp.setHeader("Content-Disposition", req.getParameter("disp")
+                + "; filename=\"" + blobName.substring(blobName.lastIndexOf('/') + 1) + "\"");
+        storage.download(blobName, 0, -1, resp.getOutputStream());
+    }
+}
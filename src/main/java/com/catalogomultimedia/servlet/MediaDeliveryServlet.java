@@ -0,0 +1,204 @@
+package com.catalogomultimedia.servlet;
+
+import com.catalogomultimedia.entity.MediaFile;
+import com.catalogomultimedia.service.BlobDiskCache;
+import com.catalogomultimedia.service.MediaFileService;
+import com.catalogomultimedia.service.StorageBackend;
+import jakarta.inject.Inject;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Entrega de pósters y fichas: GET /media/files/{id}[?variant=small|medium|large][&download=1]
+ * Responde 304 si If-None-Match coincide con el ETag guardado en MediaFile, admite un rango de
+ * bytes (visores de PDF) y sirve desde BlobDiskCache los blobs más pedidos.
+ */
+@WebServlet("/media/files/*")
+public class MediaDeliveryServlet extends HttpServlet {
+
+    @Inject
+    MediaFileService mediaFileService;
+
+    @Inject
+    StorageBackend storageBackend;
+
+    @Inject
+    BlobDiskCache diskCache;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        MediaFile mf = findFile(req.getPathInfo());
+        if (mf == null || !Boolean.TRUE.equals(mf.getIsActive())) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String variant = req.getParameter("variant");
+        String blobUrl = variantUrl(mf, variant);
+        if (blobUrl == null) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String blobName = storageBackend.blobNameFromUrl(blobUrl);
+        boolean original = blobUrl.equals(mf.getBlobUrl());
+        String etag = etagOf(mf, original ? null : variant);
+
+        resp.setHeader("Cache-Control", "private, max-age=3600");
+        resp.setHeader("Accept-Ranges", "bytes");
+        if (etag != null) {
+            resp.setHeader("ETag", etag);
+            if (matches(req.getHeader("If-None-Match"), etag)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
+        long expectedSize = original && mf.getSizeBytes() != null ? mf.getSizeBytes() : 0;
+        Path cached = diskCache.get(blobName, etag, expectedSize);
+        long size = cached != null ? sizeOf(cached) : expectedSize;
+        if (cached == null && size <= 0) {
+            // Sin tamaño conocido no se pueden servir rangos: se envía completo desde el almacenamiento
+            resp.setContentType(contentTypeOf(mf, original));
+            storageBackend.download(blobName, 0, -1, resp.getOutputStream());
+            return;
+        }
+
+        long[] range = parseRange(req, etag, size);
+        if (range == null) {
+            resp.setHeader("Content-Range", "bytes */" + size);
+            resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        long start = range[0];
+        long length = range[1] - range[0] + 1;
+        if (length < size) {
+            resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            resp.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + size);
+        }
+
+        resp.setContentType(contentTypeOf(mf, original));
+        resp.setContentLengthLong(length);
+        String fileName = blobName.substring(blobName.lastIndexOf('/') + 1);
+        resp.setHeader("Content-Disposition",
+                ("1".equals(req.getParameter("download")) ? "attachment" : "inline")
+                        + "; filename=\"" + fileName + "\"");
+
+        OutputStream out = resp.getOutputStream();
+        if (cached != null) {
+            try {
+                copyRange(cached, start, length, out);
+                return;
+            } catch (NoSuchFileException e) {
+                // Expulsado de la caché entre get() y la lectura: se sirve desde el almacenamiento
+            }
+        }
+        storageBackend.download(blobName, start, length, out);
+    }
+
+    /* -------------------- Helpers -------------------- */
+
+    private MediaFile findFile(String pathInfo) {
+        if (pathInfo == null || pathInfo.length() < 2) return null;
+        try {
+            return mediaFileService.findById(Long.parseLong(pathInfo.substring(1)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String variantUrl(MediaFile mf, String variant) {
+        if (variant == null || variant.isBlank()) return mf.getBlobUrl();
+        return switch (variant) {
+            case "small" -> mf.getThumbnailSmallUrl();
+            case "medium" -> mf.getThumbnailMediumUrl();
+            case "large" -> mf.getThumbnailLargeUrl();
+            default -> null;
+        };
+    }
+
+    private static String contentTypeOf(MediaFile mf, boolean original) {
+        if (!original) return "image/jpeg";
+        return mf.getContentType() != null ? mf.getContentType() : "application/octet-stream";
+    }
+
+    // Las miniaturas derivan del original: su ETag es el del original más la variante
+    private static String etagOf(MediaFile mf, String variant) {
+        if (mf.getEtag() == null || mf.getEtag().isBlank()) return null;
+        String value = mf.getEtag().replace("\"", "");
+        return "\"" + value + (variant != null ? "-" + variant : "") + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.startsWith("W/")) c = c.substring(2);
+            if (c.equals("*") || c.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Rango pedido como [inicio, fin] inclusivos; todo el archivo si no hay cabecera Range, si
+     * If-Range no coincide o si se piden varios rangos. null si el rango no es satisfacible.
+     */
+    private static long[] parseRange(HttpServletRequest req, String etag, long size) {
+        long[] full = {0, size - 1};
+        String header = req.getHeader("Range");
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")) return full;
+
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange != null && !ifRange.equals(etag)) return full;
+
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return full;
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                // bytes=-N: los últimos N bytes
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix <= 0) return null;
+                start = Math.max(0, size - suffix);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                end = dash == spec.length() - 1 ? size - 1 : Math.min(Long.parseLong(spec.substring(dash + 1)), size - 1);
+            }
+            if (start >= size || start > end) return null;
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return full;
+        }
+    }
+
+    private static long sizeOf(Path file) throws IOException {
+        return Files.size(file);
+    }
+
+    private static void copyRange(Path file, long start, long length, OutputStream out) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long n = in.transferTo(position, end - position, target);
+                if (n <= 0) break;
+                position += n;
+            }
+        }
+    }
+}
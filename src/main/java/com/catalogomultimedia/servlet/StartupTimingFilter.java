@@ -0,0 +1,37 @@
+package com.catalogomultimedia.servlet;
+
+import com.catalogomultimedia.config.StartupTimings;
+import jakarta.inject.Inject;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Marca en StartupTimings el final del primer render del dashboard (también cuando llega como página de bienvenida)
+ */
+@WebFilter(urlPatterns = "/dashboard.xhtml", dispatcherTypes = {DispatcherType.REQUEST, DispatcherType.FORWARD})
+public class StartupTimingFilter extends HttpFilter {
+
+    @Inject
+    StartupTimings startupTimings;
+
+    @Override
+    protected void doFilter(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
+            throws IOException, ServletException {
+        if (startupTimings.isFirstDashboardRendered()) {
+            chain.doFilter(req, resp);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        chain.doFilter(req, resp);
+        if (resp.getStatus() < 400) {
+            startupTimings.dashboardRendered(System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.catalogomultimedia.servlet;
+
+import com.catalogomultimedia.dtos.TitleSuggestionDTO;
+import com.catalogomultimedia.service.TitleSuggestionIndex;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Autocompletado de títulos: GET /api/titles/suggest?q=...&limit=10
+ * (consultas de menos de TitleSuggestionIndex.MIN_QUERY_LENGTH caracteres devuelven [])
+ */
+@WebServlet("/api/titles/suggest")
+public class TitleSuggestServlet extends HttpServlet {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+
+    @Inject
+    TitleSuggestionIndex suggestionIndex;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        int limit = DEFAULT_LIMIT;
+        try {
+            if (req.getParameter("limit") != null) {
+                limit = Math.min(Math.max(Integer.parseInt(req.getParameter("limit")), 1), MAX_LIMIT);
+            }
+        } catch (NumberFormatException ignored) {
+        }
+
+        String q = req.getParameter("q");
+        JsonArrayBuilder array = Json.createArrayBuilder();
+        if (q != null && q.trim().length() >= TitleSuggestionIndex.MIN_QUERY_LENGTH) {
+            for (TitleSuggestionDTO s : suggestionIndex.suggest(q, limit)) {
+                array.add(Json.createObjectBuilder()
+                        .add("mediaTitleId", s.getMediaTitleId())
+                        .add("titleName", s.getTitleName()));
+            }
+        }
+
+        resp.setContentType("application/json; charset=UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        try (PrintWriter out = resp.getWriter()) {
+            out.print(array.build().toString());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+-- Esquema que antes generaba Hibernate (hbm2ddl). Idempotente: en una BD creada por hbm2ddl solo
+-- añade lo que falte y deja las tablas existentes como están.
+
+CREATE SEQUENCE IF NOT EXISTS media_titles_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS media_files_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS movie_genres_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS movie_genres (
+    movie_genre_id BIGINT NOT NULL PRIMARY KEY,
+    genre_name     VARCHAR(50) NOT NULL,
+    CONSTRAINT uk_movie_genres_genre_name UNIQUE (genre_name)
+);
+
+CREATE TABLE IF NOT EXISTS media_titles (
+    media_title_id       BIGINT NOT NULL PRIMARY KEY,
+    title_name           VARCHAR(150) NOT NULL,
+    title_type           VARCHAR(20) NOT NULL,
+    release_year         INTEGER NOT NULL,
+    synopsis             VARCHAR(1000),
+    average_rating       DOUBLE PRECISION,
+    created_at           TIMESTAMP NOT NULL,
+    poster_thumbnail_url VARCHAR(500)
+);
+
+CREATE TABLE IF NOT EXISTS media_title_genres (
+    media_title_id BIGINT NOT NULL,
+    movie_genre_id BIGINT NOT NULL,
+    PRIMARY KEY (media_title_id, movie_genre_id),
+    CONSTRAINT fk_media_title_genres_title FOREIGN KEY (media_title_id) REFERENCES media_titles (media_title_id),
+    CONSTRAINT fk_media_title_genres_genre FOREIGN KEY (movie_genre_id) REFERENCES movie_genres (movie_genre_id)
+);
+
+CREATE TABLE IF NOT EXISTS media_files (
+    media_file_id        BIGINT NOT NULL PRIMARY KEY,
+    media_title_id       BIGINT NOT NULL,
+    file_type            VARCHAR(20) NOT NULL,
+    blob_url             VARCHAR(500) NOT NULL,
+    etag                 VARCHAR(100),
+    content_type         VARCHAR(50),
+    size_bytes           BIGINT,
+    uploaded_at          TIMESTAMP NOT NULL,
+    uploaded_by          VARCHAR(50),
+    is_active            BOOLEAN,
+    content_sha256       VARCHAR(64),
+    thumbnail_small_url  VARCHAR(500),
+    thumbnail_medium_url VARCHAR(500),
+    thumbnail_large_url  VARCHAR(500),
+    CONSTRAINT fk_media_files_title FOREIGN KEY (media_title_id) REFERENCES media_titles (media_title_id)
+);
+
+CREATE TABLE IF NOT EXISTS blob_content_hashes (
+    content_sha256 VARCHAR(64) NOT NULL PRIMARY KEY,
+    file_type      VARCHAR(20) NOT NULL,
+    blob_name      VARCHAR(400) NOT NULL,
+    blob_url       VARCHAR(500) NOT NULL,
+    etag           VARCHAR(100),
+    content_type   VARCHAR(50),
+    size_bytes     BIGINT,
+    created_at     TIMESTAMP NOT NULL
+);
+
+-- Columnas añadidas después de la primera versión del esquema (BD antiguas creadas por hbm2ddl)
+ALTER TABLE media_titles ADD COLUMN IF NOT EXISTS poster_thumbnail_url VARCHAR(500);
+ALTER TABLE media_files ADD COLUMN IF NOT EXISTS content_sha256 VARCHAR(64);
+ALTER TABLE media_files ADD COLUMN IF NOT EXISTS thumbnail_small_url VARCHAR(500);
+ALTER TABLE media_files ADD COLUMN IF NOT EXISTS thumbnail_medium_url VARCHAR(500);
+ALTER TABLE media_files ADD COLUMN IF NOT EXISTS thumbnail_large_url VARCHAR(500);
+
+-- Índices sobre columnas añadidas: siempre después de los ADD COLUMN (en una BD de hbm2ddl aún no existen)
+CREATE INDEX IF NOT EXISTS idx_media_files_content_sha256 ON media_files (content_sha256);
+
+-- Secuencias de ids (allocationSize = 50). Si la tabla ya tiene filas más altas que la secuencia
+-- (ids IDENTITY anteriores) se adelanta para que el primer bloque empiece después del máximo.
+-- Los INSERT por SQL directo toman un valor de la secuencia como DEFAULT.
+DO $$ BEGIN
+    IF (SELECT last_value FROM media_titles_seq) < (SELECT COALESCE(MAX(media_title_id), 0) FROM media_titles) THEN
+        PERFORM setval('media_titles_seq', (SELECT MAX(media_title_id) FROM media_titles) + 50, false);
+    END IF;
+    IF (SELECT last_value FROM media_files_seq) < (SELECT COALESCE(MAX(media_file_id), 0) FROM media_files) THEN
+        PERFORM setval('media_files_seq', (SELECT MAX(media_file_id) FROM media_files) + 50, false);
+    END IF;
+    IF (SELECT last_value FROM movie_genres_seq) < (SELECT COALESCE(MAX(movie_genre_id), 0) FROM movie_genres) THEN
+        PERFORM setval('movie_genres_seq', (SELECT MAX(movie_genre_id) FROM movie_genres) + 50, false);
+    END IF;
+END $$;
+
+ALTER TABLE media_titles ALTER COLUMN media_title_id SET DEFAULT nextval('media_titles_seq');
+ALTER TABLE media_files ALTER COLUMN media_file_id SET DEFAULT nextval('media_files_seq');
+ALTER TABLE movie_genres ALTER COLUMN movie_genre_id SET DEFAULT nextval('movie_genres_seq');
@@ -0,0 +1,34 @@
+-- Búsqueda de texto completo sobre título + sinopsis (español, sin acentos)
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+DO $$ BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'es_unaccent') THEN
+        CREATE TEXT SEARCH CONFIGURATION es_unaccent (COPY = spanish);
+        ALTER TEXT SEARCH CONFIGURATION es_unaccent
+            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+    END IF;
+END $$;
+
+ALTER TABLE media_titles ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE FUNCTION media_titles_search_vector_update() RETURNS trigger AS $$
+BEGIN
+    NEW.search_vector =
+            setweight(to_tsvector('es_unaccent', coalesce(NEW.title_name, '')), 'A') ||
+            setweight(to_tsvector('es_unaccent', coalesce(NEW.synopsis, '')), 'B');
+    RETURN NEW;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_media_titles_search_vector ON media_titles;
+
+CREATE TRIGGER trg_media_titles_search_vector
+    BEFORE INSERT OR UPDATE OF title_name, synopsis ON media_titles
+    FOR EACH ROW EXECUTE FUNCTION media_titles_search_vector_update();
+
+UPDATE media_titles SET search_vector =
+        setweight(to_tsvector('es_unaccent', coalesce(title_name, '')), 'A') ||
+        setweight(to_tsvector('es_unaccent', coalesce(synopsis, '')), 'B')
+WHERE search_vector IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_media_titles_search_vector ON media_titles USING GIN (search_vector);
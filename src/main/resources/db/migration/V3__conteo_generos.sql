@@ -0,0 +1,48 @@
+-- Conteo de títulos por género mantenido por triggers (top-N sin agrupar media_title_genres)
+
+CREATE TABLE IF NOT EXISTS genre_usage (
+    movie_genre_id BIGINT PRIMARY KEY REFERENCES movie_genres (movie_genre_id) ON DELETE CASCADE,
+    title_count    BIGINT NOT NULL DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_genre_usage_title_count ON genre_usage (title_count DESC, movie_genre_id);
+
+-- Triggers por sentencia con tablas de transición: una actualización por género y sentencia
+CREATE OR REPLACE FUNCTION genre_usage_apply() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO genre_usage (movie_genre_id, title_count)
+        SELECT movie_genre_id, COUNT(*) FROM new_rows GROUP BY movie_genre_id
+        ON CONFLICT (movie_genre_id) DO UPDATE
+            SET title_count = genre_usage.title_count + EXCLUDED.title_count;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE genre_usage u SET title_count = u.title_count - d.cnt
+        FROM (SELECT movie_genre_id, COUNT(*) AS cnt FROM old_rows GROUP BY movie_genre_id) d
+        WHERE u.movie_genre_id = d.movie_genre_id;
+    END IF;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_genre_usage_insert ON media_title_genres;
+DROP TRIGGER IF EXISTS trg_genre_usage_delete ON media_title_genres;
+DROP TRIGGER IF EXISTS trg_genre_usage_update ON media_title_genres;
+
+CREATE TRIGGER trg_genre_usage_insert AFTER INSERT ON media_title_genres
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION genre_usage_apply();
+
+CREATE TRIGGER trg_genre_usage_delete AFTER DELETE ON media_title_genres
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION genre_usage_apply();
+
+CREATE TRIGGER trg_genre_usage_update AFTER UPDATE ON media_title_genres
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION genre_usage_apply();
+
+-- Recuento completo: corrige cualquier desviación previa a los triggers
+INSERT INTO genre_usage (movie_genre_id, title_count)
+SELECT g.movie_genre_id, COUNT(mtg.media_title_id) FROM movie_genres g
+LEFT JOIN media_title_genres mtg ON mtg.movie_genre_id = g.movie_genre_id
+GROUP BY g.movie_genre_id
+ON CONFLICT (movie_genre_id) DO UPDATE SET title_count = EXCLUDED.title_count;
@@ -0,0 +1,21 @@
+-- Nombre de blob a partir de las URLs guardadas (sin firma ni prefijo de cuenta/contenedor),
+-- indexado en orden "C" para que BlobOrphanReconciler lo recorra por keyset igual que el listado
+
+CREATE OR REPLACE FUNCTION media_blob_name(url text) RETURNS text AS $$
+    SELECT substring(split_part(url, '?', 1) from '(?:^|/)((?:posters|fichas)/.*)$')
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE INDEX IF NOT EXISTS idx_media_files_blob_name
+    ON media_files ((media_blob_name(blob_url)) COLLATE "C");
+
+CREATE INDEX IF NOT EXISTS idx_media_files_thumb_small_name
+    ON media_files ((media_blob_name(thumbnail_small_url)) COLLATE "C")
+    WHERE thumbnail_small_url IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_media_files_thumb_medium_name
+    ON media_files ((media_blob_name(thumbnail_medium_url)) COLLATE "C")
+    WHERE thumbnail_medium_url IS NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_media_files_thumb_large_name
+    ON media_files ((media_blob_name(thumbnail_large_url)) COLLATE "C")
+    WHERE thumbnail_large_url IS NOT NULL;
@@ -0,0 +1,28 @@
+-- Índices de las consultas frecuentes del catálogo y del dashboard (se comprueban en /_health/plans)
+
+-- Orden por defecto del catálogo y paginación por keyset (created_at DESC, id DESC);
+-- también el rango "altas del último mes" del dashboard
+CREATE INDEX IF NOT EXISTS idx_media_titles_created_at_id
+    ON media_titles (created_at DESC, media_title_id DESC);
+
+-- Catálogo filtrado por tipo con el mismo orden, y recuentos por tipo
+CREATE INDEX IF NOT EXISTS idx_media_titles_type_created_at_id
+    ON media_titles (title_type, created_at DESC, media_title_id DESC);
+
+-- "¿Tiene póster activo?" por título (listado del catálogo y dashboard). Parcial: solo archivos activos;
+-- size_bytes incluido para que los totales del dashboard se resuelvan sin leer la tabla
+CREATE INDEX IF NOT EXISTS idx_media_files_active_title_type
+    ON media_files (media_title_id, file_type) INCLUDE (size_bytes)
+    WHERE is_active;
+
+-- Clave ajena: carga de la colección mediaFiles (incluye inactivos) y borrado en cascada de títulos
+CREATE INDEX IF NOT EXISTS idx_media_files_media_title_id
+    ON media_files (media_title_id);
+
+-- Filtro por género desde el género (la clave primaria empieza por media_title_id)
+CREATE INDEX IF NOT EXISTS idx_media_title_genres_genre
+    ON media_title_genres (movie_genre_id, media_title_id);
+
+ANALYZE media_titles;
+ANALYZE media_files;
+ANALYZE media_title_genres;
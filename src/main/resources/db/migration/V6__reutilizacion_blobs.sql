@@ -0,0 +1,6 @@
+-- Última vez que la deduplicación entregó un blob a una subida nueva: mientras esté dentro del periodo
+-- de gracia, BlobOrphanReconciler lo considera referenciado aunque su MediaFile aún no se haya guardado
+
+ALTER TABLE blob_content_hashes ADD COLUMN IF NOT EXISTS last_reused_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_blob_content_hashes_blob_name ON blob_content_hashes (blob_name);
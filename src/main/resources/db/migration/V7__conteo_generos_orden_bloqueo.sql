@@ -0,0 +1,36 @@
+-- genre_usage_apply() bloqueaba las filas de genre_usage en el orden (arbitrario) de la salida del GROUP BY:
+-- dos transacciones con géneros en común (p. ej. los hilos de la importación masiva) podían bloquearse
+-- mutuamente. Ahora se bloquean primero en orden de movie_genre_id y se actualizan en ese mismo orden.
+-- (V3 ya está aplicada en las BD existentes: el cambio va en una versión nueva)
+
+CREATE OR REPLACE FUNCTION genre_usage_apply() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM 1 FROM genre_usage
+        WHERE movie_genre_id IN (SELECT movie_genre_id FROM new_rows)
+        ORDER BY movie_genre_id FOR UPDATE;
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM 1 FROM genre_usage
+        WHERE movie_genre_id IN (SELECT movie_genre_id FROM old_rows)
+        ORDER BY movie_genre_id FOR UPDATE;
+    ELSE
+        PERFORM 1 FROM genre_usage
+        WHERE movie_genre_id IN (SELECT movie_genre_id FROM new_rows
+                                 UNION SELECT movie_genre_id FROM old_rows)
+        ORDER BY movie_genre_id FOR UPDATE;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO genre_usage (movie_genre_id, title_count)
+        SELECT movie_genre_id, COUNT(*) FROM new_rows GROUP BY movie_genre_id ORDER BY movie_genre_id
+        ON CONFLICT (movie_genre_id) DO UPDATE
+            SET title_count = genre_usage.title_count + EXCLUDED.title_count;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        UPDATE genre_usage u SET title_count = u.title_count - d.cnt
+        FROM (SELECT movie_genre_id, COUNT(*) AS cnt FROM old_rows
+              GROUP BY movie_genre_id ORDER BY movie_genre_id) d
+        WHERE u.movie_genre_id = d.movie_genre_id;
+    END IF;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
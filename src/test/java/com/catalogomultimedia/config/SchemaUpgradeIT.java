@@ -0,0 +1,131 @@
+package com.catalogomultimedia.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Actualización de una instalación existente: BD creada por hbm2ddl (HIBERNATE_DDL=update) con las entidades
+ * de antes de las migraciones (ids IDENTITY, sin content_sha256 ni miniaturas ni blob_content_hashes) y con
+ * datos. SchemaMigrator debe adoptarla aplicando todas las versiones sin perder filas.
+ */
+@Testcontainers
+class SchemaUpgradeIT {
+
+    // Lo que generaba Hibernate 5.6 (PostgreSQL) con las entidades originales
+    private static final String[] HBM2DDL_BASELINE = {
+            "create table media_files (media_file_id bigserial not null, blob_url varchar(500) not null, " +
+                    "content_type varchar(50), etag varchar(100), file_type varchar(20) not null, is_active boolean, " +
+                    "size_bytes int8, uploaded_at timestamp not null, uploaded_by varchar(50), " +
+                    "media_title_id int8 not null, primary key (media_file_id))",
+            "create table media_title_genres (media_title_id int8 not null, movie_genre_id int8 not null, " +
+                    "primary key (media_title_id, movie_genre_id))",
+            "create table media_titles (media_title_id bigserial not null, average_rating float8, " +
+                    "created_at timestamp not null, release_year int4 not null, synopsis varchar(1000), " +
+                    "title_name varchar(150) not null, title_type varchar(20) not null, primary key (media_title_id))",
+            "create table movie_genres (movie_genre_id bigserial not null, genre_name varchar(50) not null, " +
+                    "primary key (movie_genre_id))",
+            "alter table if exists movie_genres add constraint UK_genre_name unique (genre_name)",
+            "alter table if exists media_files add constraint FK_media_files_title " +
+                    "foreign key (media_title_id) references media_titles",
+            "alter table if exists media_title_genres add constraint FK_media_title_genres_genre " +
+                    "foreign key (movie_genre_id) references movie_genres",
+            "alter table if exists media_title_genres add constraint FK_media_title_genres_title " +
+                    "foreign key (media_title_id) references media_titles"
+    };
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+
+    @BeforeAll
+    static void instalacionExistente() throws SQLException {
+        System.setProperty("DB_URL", POSTGRES.getJdbcUrl());
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            for (String ddl : HBM2DDL_BASELINE) {
+                st.execute(ddl);
+            }
+            st.execute("INSERT INTO movie_genres (genre_name) SELECT 'Género ' || g FROM generate_series(1, 3) g");
+            st.execute("INSERT INTO media_titles (title_name, title_type, release_year, synopsis, created_at) " +
+                    "SELECT 'Título ' || i, 'MOVIE', 2000 + i, 'Sinopsis ' || i, now() FROM generate_series(1, 120) i");
+            st.execute("INSERT INTO media_title_genres (media_title_id, movie_genre_id) " +
+                    "SELECT media_title_id, 1 + media_title_id % 3 FROM media_titles");
+            st.execute("INSERT INTO media_files (media_title_id, file_type, blob_url, uploaded_at, is_active) " +
+                    "SELECT media_title_id, 'POSTER', 'https://catalogo.blob.core.windows.net/media/posters/' " +
+                    "|| media_title_id || '.jpg', now(), true FROM media_titles");
+        }
+
+        new SchemaMigrator(dataSource).migrate();
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        System.clearProperty("DB_URL");
+    }
+
+    @Test
+    void aplicaTodasLasVersionesSinPerderDatos() throws SQLException {
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM schema_version WHERE version = 1"));
+        assertEquals(120, queryLong("SELECT COUNT(*) FROM media_titles"));
+        assertEquals(120, queryLong("SELECT COUNT(*) FROM media_files"));
+        assertEquals(120, queryLong("SELECT COALESCE(SUM(title_count), 0) FROM genre_usage"));
+        assertEquals(120, queryLong("SELECT COUNT(*) FROM media_titles WHERE search_vector IS NOT NULL"));
+    }
+
+    @Test
+    void anadeColumnasEIndicesQueHbm2ddlNoTenia() throws SQLException {
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM information_schema.columns " +
+                "WHERE table_name = 'media_files' AND column_name = 'content_sha256'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM pg_indexes WHERE indexname = 'idx_media_files_content_sha256'"));
+        assertEquals(1, queryLong("SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'blob_content_hashes'"));
+    }
+
+    @Test
+    void lasSecuenciasEmpiezanDespuesDeLosIdsIdentity() throws SQLException {
+        long maxId = queryLong("SELECT MAX(media_title_id) FROM media_titles");
+        long nextId = queryLong("SELECT nextval('media_titles_seq')");
+        assertTrue(nextId > maxId, () -> "media_titles_seq devolvió " + nextId + " con ids hasta " + maxId);
+    }
+
+    @Test
+    void unSegundoArranqueNoVuelveAMigrar() throws SQLException {
+        long applied = queryLong("SELECT COUNT(*) FROM schema_version");
+        new SchemaMigrator(dataSource).migrate();
+        assertEquals(applied, queryLong("SELECT COUNT(*) FROM schema_version"));
+    }
+
+    private static long queryLong(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.catalogomultimedia.health;
+
+import com.catalogomultimedia.config.SchemaMigrator;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las consultas de QueryPlanServlet.CHECKS usan el índice creado para ellas en V5: migraciones reales
+ * sobre PostgreSQL, datos con el volumen y la proporción de una BD en uso y el plan que elige el
+ * planificador tras VACUUM ANALYZE (sin desactivar los recorridos secuenciales).
+ */
+@Testcontainers
+class QueryPlanIT {
+
+    private static final int TITLES = 100_000;
+    private static final int GENRES = 20;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+
+    @BeforeAll
+    static void migrarYPoblar() throws SQLException {
+        // SchemaMigrator solo actúa sobre URLs de PostgreSQL
+        System.setProperty("DB_URL", POSTGRES.getJdbcUrl());
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+
+        new SchemaMigrator(dataSource).migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO movie_genres (movie_genre_id, genre_name) " +
+                    "SELECT g, 'Género ' || g FROM generate_series(1, " + GENRES + ") g");
+
+            // Altas repartidas en cinco años; un tercio series
+            st.execute("INSERT INTO media_titles (media_title_id, title_name, title_type, release_year, synopsis, created_at) " +
+                    "SELECT i, 'Título ' || i, CASE WHEN i % 3 = 0 THEN 'SERIES' ELSE 'MOVIE' END, 1950 + i % 75, " +
+                    "'Sinopsis del título ' || i, now() - (i % 1825) * interval '1 day' - (i % 86400) * interval '1 second' " +
+                    "FROM generate_series(1, " + TITLES + ") i");
+
+            // Dos géneros por título
+            st.execute("INSERT INTO media_title_genres (media_title_id, movie_genre_id) " +
+                    "SELECT i, g FROM generate_series(1, " + TITLES + ") i, " +
+                    "LATERAL (VALUES (i % " + GENRES + " + 1), ((i + 7) % " + GENRES + " + 1)) v(g)");
+
+            // Por título: ficha técnica y póster activos más un póster anterior ya sustituido (inactivo)
+            st.execute("INSERT INTO media_files (media_file_id, media_title_id, file_type, blob_url, content_type, " +
+                    "size_bytes, uploaded_at, uploaded_by, is_active, thumbnail_small_url, thumbnail_medium_url, thumbnail_large_url) " +
+                    "SELECT f, 1 + (f - 1) / 3, CASE WHEN f % 3 = 1 THEN 'TECHNICAL_SHEET' ELSE 'POSTER' END, " +
+                    "'https://catalogo.blob.core.windows.net/media/posters/' || md5(f::text) || '.jpg', 'image/jpeg', " +
+                    "100000 + f % 5000000, now(), 'admin', f % 3 <> 2, " +
+                    "'https://catalogo.blob.core.windows.net/media/posters/' || md5(f::text) || '_small.jpg', " +
+                    "'https://catalogo.blob.core.windows.net/media/posters/' || md5(f::text) || '_medium.jpg', " +
+                    "'https://catalogo.blob.core.windows.net/media/posters/' || md5(f::text) || '_large.jpg' " +
+                    "FROM generate_series(1, " + (TITLES * 3) + ") f");
+
+            // Estadísticas y mapa de visibilidad al día (index-only scans), como tras el autovacuum
+            st.execute("VACUUM ANALYZE");
+        }
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        System.clearProperty("DB_URL");
+    }
+
+    static Stream<Arguments> consultas() {
+        return Arrays.stream(QueryPlanServlet.CHECKS).map(check -> Arguments.of(check[0], check[1], check[2]));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("consultas")
+    void usaSuIndice(String nombre, String indice, String sql) throws SQLException {
+        String plan;
+        try (Connection connection = dataSource.getConnection();
+             Statement st = connection.createStatement()) {
+            plan = QueryPlanServlet.explain(st, sql);
+        }
+        assertTrue(plan.contains(indice), () -> nombre + ": se esperaba " + indice + " en el plan\n" + plan);
+    }
+}